@@ -0,0 +1,134 @@
+/**
+ * Loest viele kleine LGS A_s*x_s=b_s (s = 0..count-1) gleicher Groesse n x n
+ * in einem Aufruf mit Gauss-Elimination und Spaltenpivotisierung.
+ *
+ * Alle Systeme liegen verschraenkt (struct of arrays) in je einem Array:
+ * Eintrag (i,j) von A_s steht in a[(i*n + j)*count + s], Eintrag i von b_s in
+ * b[i*count + s]. Die innersten Schleifen laufen damit ueber s, also ueber
+ * benachbarte Speicherzellen, und koennen vom JIT vektorisiert werden. Pro
+ * System wird kein Speicher angelegt, nur drei Hilfsarrays der Laenge count
+ * pro Aufruf.
+ */
+public class BatchGauss {
+
+    /**
+     * Loest alle count Systeme. b wird mit den Loesungen x_s ueberschrieben.
+     * In a steht danach auf und ueber der Diagonale die obere Dreiecksmatrix
+     * U jedes Systems, die Eintraege darunter sind undefiniert (L wird nicht
+     * gespeichert, a ist also keine wiederverwendbare Zerlegung). Ist ein
+     * System singulaer, enthaelt seine Loesung Inf oder NaN, die uebrigen
+     * Systeme sind davon nicht betroffen.
+     */
+    public static void solve(int n, int count, double[] a, double[] b) {
+        if (a.length < (long) n * n * count || b.length < (long) n * count) {
+            throw new IllegalArgumentException("a muss n*n*count, b n*count Eintraege haben");
+        }
+
+        //pro System: groesster Pivotbetrag bzw. Kehrwert des Pivots, Pivotzeile, Zeilenfaktor
+        double[] scratch = new double[count];
+        int[] pivot = new int[count];
+        double[] lineFactor = new double[count];
+
+        for (int k = 0; k < n; k++) {
+            int kk = (k * n + k) * count;
+
+            //betragsgroesstes Pivot-Element je System suchen
+            for (int s = 0; s < count; s++) {
+                scratch[s] = Math.abs(a[kk + s]);
+                pivot[s] = k;
+            }
+            for (int i = k + 1; i < n; i++) {
+                int ik = (i * n + k) * count;
+                for (int s = 0; s < count; s++) {
+                    double v = Math.abs(a[ik + s]);
+                    if (v > scratch[s]) {
+                        scratch[s] = v;
+                        pivot[s] = i;
+                    }
+                }
+            }
+
+            //Zeilen tauschen, nur in den betroffenen Systemen
+            for (int s = 0; s < count; s++) {
+                int p = pivot[s];
+                if (p != k) {
+                    for (int j = k; j < n; j++) {
+                        int x = (k * n + j) * count + s;
+                        int y = (p * n + j) * count + s;
+                        double tmp = a[x];
+                        a[x] = a[y];
+                        a[y] = tmp;
+                    }
+                    double tmp = b[k * count + s];
+                    b[k * count + s] = b[p * count + s];
+                    b[p * count + s] = tmp;
+                }
+            }
+
+            for (int s = 0; s < count; s++) {
+                scratch[s] = 1.0 / a[kk + s];
+            }
+
+            //Werte unter dem Pivot auf 0 bringen
+            for (int i = k + 1; i < n; i++) {
+                int ik = (i * n + k) * count;
+                for (int s = 0; s < count; s++) {
+                    lineFactor[s] = a[ik + s] * scratch[s];
+                }
+
+                for (int j = k + 1; j < n; j++) {
+                    int ij = (i * n + j) * count;
+                    int kj = (k * n + j) * count;
+                    for (int s = 0; s < count; s++) {
+                        a[ij + s] -= lineFactor[s] * a[kj + s];
+                    }
+                }
+
+                int bi = i * count;
+                int bk = k * count;
+                for (int s = 0; s < count; s++) {
+                    b[bi + s] -= lineFactor[s] * b[bk + s];
+                }
+            }
+        }
+
+        //Rueckwaertssubstitution, b wird durch x ersetzt
+        for (int i = n - 1; i >= 0; i--) {
+            int bi = i * count;
+            for (int j = i + 1; j < n; j++) {
+                int ij = (i * n + j) * count;
+                int bj = j * count;
+                for (int s = 0; s < count; s++) {
+                    b[bi + s] -= a[ij + s] * b[bj + s];
+                }
+            }
+
+            int ii = (i * n + i) * count;
+            for (int s = 0; s < count; s++) {
+                b[bi + s] /= a[ii + s];
+            }
+        }
+    }
+
+    /**
+     * Schreibt System s aus einzelnen Arrays in das verschraenkte Format.
+     */
+    public static void pack(int n, int count, int s, double[][] A, double[] bs,
+            double[] a, double[] b) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                a[(i * n + j) * count + s] = A[i][j];
+            }
+            b[i * count + s] = bs[i];
+        }
+    }
+
+    /**
+     * Liest die Loesung von System s aus b in x (Laenge n).
+     */
+    public static void unpack(int n, int count, int s, double[] b, double[] x) {
+        for (int i = 0; i < n; i++) {
+            x[i] = b[i * count + s];
+        }
+    }
+}
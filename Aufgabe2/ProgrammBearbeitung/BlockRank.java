@@ -0,0 +1,305 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BlockRank (Kamvar et al.): PageRank fuer Graphen, deren Links zum groessten
+ * Teil innerhalb eines Blocks (hier: eines Hosts) bleiben, wie bei den Crawls
+ * des Crawlers. Berechnet wird in drei Stufen:
+ *
+ * 1. lokaler PageRank jedes Blocks nur mit den Links innerhalb des Blocks,
+ * parallel fuer alle Bloecke,
+ *
+ * 2. PageRank des Blockgraphen, in dem Block I mit Gewicht Summe ueber i in
+ * I, j in J von lokal[i] / outDeg(i) auf Block J verweist,
+ *
+ * 3. globale Potenzmethode (SparsePageRank) mit dem Startvektor lokal[i] *
+ * Blockrang[Block von i].
+ *
+ * Der Startvektor liegt meist nahe an der Loesung, so dass die teure globale
+ * Iteration deutlich weniger Schritte braucht. Dafuer werden die Seiten nach
+ * Block umnummeriert, die Bloecke liegen also auch im Speicher zusammen. Das
+ * Ergebnis ist dasselbe wie bei SparsePageRank.rank (bis auf tol).
+ */
+public class BlockRank {
+
+    //Toleranz der lokalen und der Blockraenge, genauer lohnt nicht, die globale Iteration korrigiert sie ohnehin
+    static final double LOCAL_TOLERANCE = 1E-6;
+
+    /**
+     * Berechnet die PageRanks mit Standardtoleranz, die Bloecke sind die
+     * Hosts der urls. urls[i] gehoert zu Seite i von g.
+     */
+    public static double[] rank(LinkGraph g, String[] urls, double rho) {
+        return rank(g, hostBlocks(urls), rho, SparsePageRank.DEFAULT_TOLERANCE,
+                SparsePageRank.DEFAULT_MAX_ITERATIONS,
+                Runtime.getRuntime().availableProcessors()).rank;
+    }
+
+    /**
+     * Berechnet die PageRanks, Seite i gehoert zum Block block[i] (0 bis
+     * Anzahl der Bloecke - 1). Die lokalen Raenge werden mit threads Threads
+     * berechnet. tol und maxIter gelten fuer die globale Iteration, deren
+     * Iterationen das Ergebnis angibt.
+     */
+    public static SparsePageRank.Result rank(LinkGraph g, int[] block, double rho, double tol,
+            int maxIter, int threads) {
+        int n = g.size();
+        int blocks = 0;
+        for (int i = 0; i < n; i++) {
+            blocks = Math.max(blocks, block[i] + 1);
+        }
+
+        //Seiten nach Block sortieren: Block b sind die neuen Nummern blockStart[b] .. blockStart[b+1]-1
+        int[] blockStart = new int[blocks + 1];
+        for (int i = 0; i < n; i++) {
+            blockStart[block[i] + 1]++;
+        }
+        for (int b = 0; b < blocks; b++) {
+            blockStart[b + 1] += blockStart[b];
+        }
+        int[] next = Arrays.copyOf(blockStart, blocks);
+        int[] newId = new int[n];
+        int[] oldId = new int[n];
+        for (int i = 0; i < n; i++) {
+            newId[i] = next[block[i]]++;
+            oldId[newId[i]] = i;
+        }
+        LinkGraph h = renumber(g, newId, oldId);
+
+        double[] local = localRanks(h, blockStart, rho, threads);
+        double[] blockRank = blockRanks(h, blockStart, local, rho, LOCAL_TOLERANCE, maxIter);
+
+        double[] start = new double[n];
+        for (int b = 0; b < blocks; b++) {
+            for (int i = blockStart[b]; i < blockStart[b + 1]; i++) {
+                start[i] = local[i] * blockRank[b];
+            }
+        }
+        SparsePageRank.Result r = SparsePageRank.rank(h, rho, tol, maxIter, start);
+
+        double[] p = new double[n];
+        for (int i = 0; i < n; i++) {
+            p[oldId[i]] = r.rank[i];
+        }
+        return new SparsePageRank.Result(p, r.iterations, r.residual, r.converged);
+    }
+
+    /**
+     * Ordnet jeder URL die Nummer ihres Hosts zu (in der Reihenfolge des
+     * ersten Auftretens). Gross- und Kleinschreibung und ein Port werden
+     * ignoriert.
+     */
+    public static int[] hostBlocks(String[] urls) {
+        HashMap<String, Integer> hosts = new HashMap<String, Integer>();
+        int[] block = new int[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            String host = host(urls[i]);
+            Integer b = hosts.get(host);
+            if (b == null) {
+                b = hosts.size();
+                hosts.put(host, b);
+            }
+            block[i] = b;
+        }
+        return block;
+    }
+
+    //Host einer URL ohne Schema, Port, Pfad und Anfrage
+    static String host(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == ':' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        return url.substring(start, end).toLowerCase();
+    }
+
+    //der Graph mit Seite i unter der Nummer newId[i]
+    private static LinkGraph renumber(LinkGraph g, int[] newId, int[] oldId) {
+        int n = g.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[g.edgeCount()];
+        for (int v = 0; v < n; v++) {
+            int old = oldId[v];
+            int from = g.offsets[old];
+            int to = g.offsets[old + 1];
+            int k = offsets[v];
+            for (int e = from; e < to; e++) {
+                targets[k++] = newId[g.targets[e]];
+            }
+            Arrays.sort(targets, offsets[v], k);
+            offsets[v + 1] = k;
+        }
+        return new LinkGraph(n, offsets, targets);
+    }
+
+    /**
+     * Stufe 1: lokaler PageRank jedes Blocks (Summe 1 pro Block), nur mit
+     * den Links innerhalb des Blocks. Die Threads holen sich die Bloecke der
+     * Reihe nach, dadurch verteilen sich viele kleine und wenige grosse
+     * Bloecke von selbst.
+     */
+    static double[] localRanks(LinkGraph h, int[] blockStart, double rho, int threads) {
+        int blocks = blockStart.length - 1;
+        double[] local = new double[h.size()];
+        AtomicInteger nextBlock = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < Math.max(1, Math.min(threads, blocks)); t++) {
+            tasks.add(() -> {
+                int b;
+                while ((b = nextBlock.getAndIncrement()) < blocks) {
+                    localRank(h, blockStart[b], blockStart[b + 1], rho, local);
+                }
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("BlockRank-Berechnung unterbrochen", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("BlockRank-Berechnung fehlgeschlagen", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return local;
+    }
+
+    //PageRank des Teilgraphen auf den Seiten from .. to-1, Ergebnis nach local[from .. to-1]
+    private static void localRank(LinkGraph h, int from, int to, double rho, double[] local) {
+        int size = to - from;
+        if (size <= 1) {
+            if (size == 1) {
+                local[from] = 1.0;
+            }
+            return;
+        }
+
+        int[] offsets = new int[size + 1];
+        int[] targets = new int[h.offsets[to] - h.offsets[from]];
+        int count = 0;
+        for (int v = from; v < to; v++) {
+            for (int k = h.offsets[v]; k < h.offsets[v + 1]; k++) {
+                int w = h.targets[k];
+                if (w >= from && w < to) {
+                    targets[count++] = w - from;
+                }
+            }
+            offsets[v - from + 1] = count;
+        }
+
+        LinkGraph sub = new LinkGraph(size, offsets, targets);
+        double[] p = SparsePageRank.rank(sub, rho, LOCAL_TOLERANCE,
+                SparsePageRank.DEFAULT_MAX_ITERATIONS).rank;
+        System.arraycopy(p, 0, local, from, size);
+    }
+
+    /**
+     * Stufe 2: PageRank des gewichteten Blockgraphen. Seiten ohne Links und
+     * der Zufallssprung verteilen ihren Rang wie im Seitengraphen auf alle
+     * Seiten, ein Block erhaelt davon also den Anteil Groesse/n.
+     */
+    static double[] blockRanks(LinkGraph h, int[] blockStart, double[] local, double rho,
+            double tol, int maxIter) {
+        int n = h.size();
+        int blocks = blockStart.length - 1;
+
+        //Blockgraph als CSR mit Gewichten, Zeile I = ausgehende Gewichte von Block I
+        int[] offsets = new int[blocks + 1];
+        int[] targets = new int[16];
+        double[] weights = new double[16];
+        double[] outWeight = new double[blocks];
+        int[] pageBlock = new int[n];
+        for (int b = 0; b < blocks; b++) {
+            Arrays.fill(pageBlock, blockStart[b], blockStart[b + 1], b);
+        }
+
+        //Summen pro Zielblock, mark[c] == b+1 falls c schon in touched steht
+        double[] acc = new double[blocks];
+        int[] mark = new int[blocks];
+        int[] touched = new int[blocks];
+        int count = 0;
+        for (int b = 0; b < blocks; b++) {
+            int touchedCount = 0;
+            for (int v = blockStart[b]; v < blockStart[b + 1]; v++) {
+                int deg = h.outDegree(v);
+                for (int k = h.offsets[v]; k < h.offsets[v + 1]; k++) {
+                    int c = pageBlock[h.targets[k]];
+                    if (mark[c] != b + 1) {
+                        mark[c] = b + 1;
+                        touched[touchedCount++] = c;
+                    }
+                    acc[c] += local[v] / deg;
+                }
+            }
+            if (count + touchedCount > targets.length) {
+                int capacity = Math.max(2 * targets.length, count + touchedCount);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            for (int t = 0; t < touchedCount; t++) {
+                int c = touched[t];
+                targets[count] = c;
+                weights[count++] = acc[c];
+                outWeight[b] += acc[c];
+                acc[c] = 0.0;
+            }
+            offsets[b + 1] = count;
+        }
+
+        double[] share = new double[blocks];
+        for (int b = 0; b < blocks; b++) {
+            share[b] = (double) (blockStart[b + 1] - blockStart[b]) / n;
+        }
+
+        double[] x = share.clone();
+        double[] y = new double[blocks];
+        double residual = Double.POSITIVE_INFINITY;
+        for (int iter = 0; iter < maxIter && residual > tol; iter++) {
+            //Rang, der nicht ueber Links weitergegeben wird (Seiten ohne Links)
+            double dangling = 0.0;
+            for (int b = 0; b < blocks; b++) {
+                dangling += x[b] * (1 - outWeight[b]);
+            }
+            for (int b = 0; b < blocks; b++) {
+                y[b] = ((1 - rho) * dangling + rho) * share[b];
+            }
+            for (int b = 0; b < blocks; b++) {
+                double xb = (1 - rho) * x[b];
+                for (int k = offsets[b]; k < offsets[b + 1]; k++) {
+                    y[targets[k]] += xb * weights[k];
+                }
+            }
+
+            residual = 0.0;
+            for (int b = 0; b < blocks; b++) {
+                residual += Math.abs(y[b] - x[b]);
+            }
+            double[] tmp = x;
+            x = y;
+            y = tmp;
+        }
+
+        SparsePageRank.normalize(x);
+        return x;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Blockweise LU-Zerlegung mit Spaltenpivotisierung auf einer zusammenhaengend
+ * gespeicherten Matrix (zeilenweise in einem double[] der Laenge n*n, Eintrag
+ * (i,j) an Position i*n+j).
+ *
+ * Es wird jeweils ein Panel von BLOCK_SIZE Spalten unblockiert zerlegt, danach
+ * wird die Restmatrix in einem Schritt aktualisiert (A22 -= L21*U12). Dieses
+ * Update ist ein Matrix-Matrix-Produkt, bei dem der U12-Block im Cache bleibt,
+ * waehrend die Zeilen von A22 durchlaufen werden. Die Pivotwahl entspricht der
+ * von Gauss.factor, da jede Panelspalte vor ihrer Pivotsuche vollstaendig
+ * aktualisiert ist.
+ */
+class BlockedLU {
+
+    //Spaltenzahl eines Panels
+    static final int BLOCK_SIZE = 64;
+
+    //Breite der Spaltenstreifen beim Update der Restmatrix
+    static final int COLUMN_BLOCK = 256;
+
+    /**
+     * Zerlegt die n x n Matrix a in-place in P*A = L*U. Danach stehen unter
+     * der Diagonale die Faktoren von L, auf und ueber der Diagonale U. perm
+     * (Laenge n) enthaelt anschliessend fuer jede Zeile die urspruengliche
+     * Zeilennummer.
+     */
+    static void factor(double[] a, int n, int[] perm) {
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+
+        for (int k0 = 0; k0 < n; k0 += BLOCK_SIZE) {
+            int kEnd = Math.min(k0 + BLOCK_SIZE, n);
+
+            factorPanel(a, n, perm, k0, kEnd);
+
+            if (kEnd < n) {
+                solveU12(a, n, k0, kEnd);
+                updateTrailing(a, n, k0, kEnd);
+            }
+        }
+    }
+
+    //unblockierte Elimination der Spalten k0..kEnd-1, nur innerhalb des Panels
+    private static void factorPanel(double[] a, int n, int[] perm, int k0, int kEnd) {
+        for (int k = k0; k < kEnd; k++) {
+
+            //betragsgroesstes Pivot-Element in Spalte k suchen
+            int p = k;
+            double biggestValue = Math.abs(a[k * n + k]);
+            for (int i = k + 1; i < n; i++) {
+                double v = Math.abs(a[i * n + k]);
+                if (v > biggestValue) {
+                    biggestValue = v;
+                    p = i;
+                }
+            }
+
+            //ganze Zeilen tauschen, damit auch L-Faktoren und A12 mitwandern
+            if (p != k) {
+                swapRows(a, n, k, p);
+                int tmp = perm[k];
+                perm[k] = perm[p];
+                perm[p] = tmp;
+            }
+
+            int rk = k * n;
+            double pivot = a[rk + k];
+            for (int i = k + 1; i < n; i++) {
+                int ri = i * n;
+                if (a[ri + k] != 0) {
+                    double lineFactor = a[ri + k] / pivot;
+                    a[ri + k] = lineFactor;
+                    for (int j = k + 1; j < kEnd; j++) {
+                        a[ri + j] -= lineFactor * a[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    //U12 = L11^-1 * A12 durch Vorwaertssubstitution mit dem Panel
+    private static void solveU12(double[] a, int n, int k0, int kEnd) {
+        for (int k = k0; k < kEnd; k++) {
+            int rk = k * n;
+            for (int i = k + 1; i < kEnd; i++) {
+                int ri = i * n;
+                double l = a[ri + k];
+                if (l != 0) {
+                    for (int j = kEnd; j < n; j++) {
+                        a[ri + j] -= l * a[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    //A22 -= L21 * U12, streifenweise ueber die Spalten. Je zwei Zeilen von A22
+    //und vier Zeilen von U12 werden gemeinsam verarbeitet, so wird jeder
+    //geladene Wert von U12 zweimal und jeder Wert von A22 viermal verwendet
+    private static void updateTrailing(double[] a, int n, int k0, int kEnd) {
+        for (int j0 = kEnd; j0 < n; j0 += COLUMN_BLOCK) {
+            int jEnd = Math.min(j0 + COLUMN_BLOCK, n);
+            int i = kEnd;
+            for (; i + 1 < n; i += 2) {
+                int ri = i * n;
+                int si = ri + n;
+                int k = k0;
+                for (; k + 3 < kEnd; k += 4) {
+                    double l0 = a[ri + k];
+                    double l1 = a[ri + k + 1];
+                    double l2 = a[ri + k + 2];
+                    double l3 = a[ri + k + 3];
+                    double m0 = a[si + k];
+                    double m1 = a[si + k + 1];
+                    double m2 = a[si + k + 2];
+                    double m3 = a[si + k + 3];
+                    int r0 = k * n;
+                    int r1 = r0 + n;
+                    int r2 = r1 + n;
+                    int r3 = r2 + n;
+                    for (int j = j0; j < jEnd; j++) {
+                        double u0 = a[r0 + j];
+                        double u1 = a[r1 + j];
+                        double u2 = a[r2 + j];
+                        double u3 = a[r3 + j];
+                        a[ri + j] -= l0 * u0 + l1 * u1 + l2 * u2 + l3 * u3;
+                        a[si + j] -= m0 * u0 + m1 * u1 + m2 * u2 + m3 * u3;
+                    }
+                }
+                for (; k < kEnd; k++) {
+                    double l = a[ri + k];
+                    double m = a[si + k];
+                    int rk = k * n;
+                    for (int j = j0; j < jEnd; j++) {
+                        double u = a[rk + j];
+                        a[ri + j] -= l * u;
+                        a[si + j] -= m * u;
+                    }
+                }
+            }
+            //ggf. letzte einzelne Zeile
+            for (; i < n; i++) {
+                int ri = i * n;
+                for (int k = k0; k < kEnd; k++) {
+                    double l = a[ri + k];
+                    int rk = k * n;
+                    for (int j = j0; j < jEnd; j++) {
+                        a[ri + j] -= l * a[rk + j];
+                    }
+                }
+            }
+        }
+    }
+
+    private static void swapRows(double[] a, int n, int r1, int r2) {
+        int o1 = r1 * n;
+        int o2 = r2 * n;
+        for (int j = 0; j < n; j++) {
+            double tmp = a[o1 + j];
+            a[o1 + j] = a[o2 + j];
+            a[o2 + j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Cholesky-Zerlegung A = L*L^T einer symmetrisch positiv definiten Matrix.
+ * Gespeichert wird nur L, zeilenweise gepackt: Eintrag (i,j) mit j <= i steht
+ * an Position i*(i+1)/2 + j. Das halbiert gegenueber Gauss.factor den
+ * Speicher und (ohne Pivotisierung) auch den Rechenaufwand.
+ */
+public class Cholesky {
+
+    private final int n;
+    private final double[] L;
+
+    private Cholesky(int n, double[] L) {
+        this.n = n;
+        this.L = L;
+    }
+
+    /**
+     * Zerlegt A. Verwendet wird nur das untere Dreieck von A, A wird nicht
+     * veraendert. Ist A nicht (numerisch) positiv definit, wird eine
+     * IllegalArgumentException geworfen.
+     */
+    public static Cholesky factor(double[][] A) {
+        Cholesky c = tryFactor(A);
+        if (c == null) {
+            throw new IllegalArgumentException("Matrix ist nicht positiv definit");
+        }
+        return c;
+    }
+
+    //wie factor, gibt aber null zurueck falls A nicht positiv definit ist
+    static Cholesky tryFactor(double[][] A) {
+        int n = A.length;
+        double[] L = packLower(A);
+
+        //Cholesky-Banachiewicz: zeilenweise, beide Zeilen liegen zusammenhaengend
+        for (int i = 0; i < n; i++) {
+            int ri = index(i, 0);
+            for (int j = 0; j <= i; j++) {
+                int rj = index(j, 0);
+                double acc = L[ri + j];
+                for (int k = 0; k < j; k++) {
+                    acc -= L[ri + k] * L[rj + k];
+                }
+
+                if (j < i) {
+                    L[ri + j] = acc / L[rj + j];
+                } else {
+                    if (!(acc > 0)) {
+                        return null;
+                    }
+                    L[ri + i] = Math.sqrt(acc);
+                }
+            }
+        }
+
+        return new Cholesky(n, L);
+    }
+
+    /**
+     * Loest A*x=b durch Vorwaerts- (L*y=b) und Rueckwaertssubstitution
+     * (L^T*x=y). b wird nicht veraendert.
+     */
+    public double[] solve(double[] b) {
+        double[] x = b.clone();
+
+        for (int i = 0; i < n; i++) {
+            int ri = index(i, 0);
+            double acc = x[i];
+            for (int k = 0; k < i; k++) {
+                acc -= L[ri + k] * x[k];
+            }
+            x[i] = acc / L[ri + i];
+        }
+
+        //L^T spaltenweise: nach x[i] wird Zeile i von L von allen x[k<i] abgezogen
+        for (int i = n - 1; i >= 0; i--) {
+            int ri = index(i, 0);
+            x[i] /= L[ri + i];
+            for (int k = 0; k < i; k++) {
+                x[k] -= L[ri + k] * x[i];
+            }
+        }
+
+        return x;
+    }
+
+    //Position von (i,j), j <= i, im gepackten unteren Dreieck
+    static int index(int i, int j) {
+        return i * (i + 1) / 2 + j;
+    }
+
+    //unteres Dreieck von A zeilenweise gepackt
+    static double[] packLower(double[][] A) {
+        int n = A.length;
+        double[] P = new double[n * (n + 1) / 2];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(A[i], 0, P, index(i, 0), i + 1);
+        }
+        return P;
+    }
+}
@@ -0,0 +1,694 @@
+import java.util.Arrays;
+
+/**
+ * Komprimierter, unveraenderlicher Linkgraph nach dem Vorbild von WebGraph
+ * (Boldi, Vigna: The WebGraph Framework I). Die Nachbarlisten stehen als
+ * Bitfolge in einem long-Array, pro Link werden bei Crawl-Graphen meist nur
+ * wenige Bits benoetigt statt 32 wie in LinkGraph.
+ *
+ * Die Seiten werden dazu nach URL sortiert neu nummeriert (Knoten x). Seiten
+ * desselben Hosts und Verzeichnisses liegen dann nebeneinander, verlinken auf
+ * nahe Nummern und haben aehnliche Listen. Die Liste von Knoten x wird
+ * kodiert als
+ *
+ * Ausgrad (gamma), Abstand r zu einer Referenzliste x-r (gamma, 0 = keine,
+ * r <= WINDOW),
+ *
+ * falls r > 0: welche Eintraege der Referenzliste uebernommen werden, als
+ * abwechselnde Laengen von Kopier- und Auslassbloecken (gamma, der letzte
+ * Block fehlt),
+ *
+ * die uebrigen Ziele: Folgen von mindestens MIN_INTERVAL aufeinander
+ * folgenden Nummern als Intervalle (Anfang als Luecke, Laenge, gamma), der
+ * Rest als Luecken zwischen aufeinander folgenden Zielen (zeta_3, das erste
+ * als vorzeichenbehafteter Abstand zu x).
+ *
+ * Beim Aufbau wird fuer jeden Knoten die Referenz mit der kuerzesten Kodierung
+ * gewaehlt. Referenzketten sind hoechstens MAX_REF_CHAIN lang, damit
+ * successors(x) fuer beliebiges x nur wenige Listen dekodieren muss. Zum
+ * Durchlaufen aller Listen (z.B. fuer PageRank) haelt cursor() die letzten
+ * WINDOW Listen vor, jede Liste wird dann genau einmal dekodiert.
+ *
+ * Pro Knoten kommen ein long (Bitposition der Liste) und zwei int
+ * (Umnummerierung) hinzu, die URLs liegen front-kodiert in einem
+ * UrlDictionary.
+ */
+public class CompressedGraph {
+
+    //Parameter wie in WebGraph: Referenzfenster, Kettenlaenge, Mindestlaenge der Intervalle, zeta_k
+    static final int WINDOW = 7;
+    static final int MAX_REF_CHAIN = 3;
+    static final int MIN_INTERVAL = 4;
+    static final int ZETA_K = 3;
+
+    private final int n;
+    private final long edges;
+    private final long[] bits;
+
+    //Bitposition der Liste von Knoten x, offsets[n] = Laenge der Bitfolge
+    private final long[] offsets;
+
+    //pages[x]: urspruengliche Seitennummer von Knoten x, nodes[page]: Knoten der Seite
+    private final int[] pages;
+    private final int[] nodes;
+
+    //URLs nach Knoten (Nummer im Woerterbuch = Knoten), null ohne URLs
+    private final UrlDictionary urls;
+
+    private CompressedGraph(int n, long edges, long[] bits, long[] offsets, int[] pages,
+            int[] nodes, UrlDictionary urls) {
+        this.n = n;
+        this.edges = edges;
+        this.bits = bits;
+        this.offsets = offsets;
+        this.pages = pages;
+        this.nodes = nodes;
+        this.urls = urls;
+    }
+
+    /**
+     * Komprimiert g. urls[v] ist die URL von Seite v und bestimmt die
+     * Reihenfolge der Knoten, die URLs muessen verschieden sein. Ist urls
+     * null, bleibt die Nummerierung von g. Ist eine URL null, wird eine
+     * IllegalArgumentException geworfen.
+     */
+    public static CompressedGraph build(LinkGraph g, String[] urls) {
+        int n = g.size();
+        int[] pages = urls == null ? identity(n) : UrlDictionary.sortedOrder(urls);
+        int[] nodes = new int[n];
+        for (int x = 0; x < n; x++) {
+            nodes[pages[x]] = x;
+        }
+        LinkGraph h = renumber(g, pages, nodes);
+
+        BitWriter out = new BitWriter();
+        BitWriter trial = new BitWriter();
+        Scratch s = new Scratch();
+        long[] offsets = new long[n + 1];
+        int[] chain = new int[n];
+        for (int x = 0; x < n; x++) {
+            offsets[x] = out.length();
+
+            //Referenz mit der kuerzesten Kodierung suchen
+            int best = 0;
+            if (h.outDegree(x) > 0) {
+                trial.reset();
+                writeList(trial, h, x, 0, s);
+                long bestBits = trial.length();
+                for (int r = 1; r <= Math.min(WINDOW, x); r++) {
+                    if (chain[x - r] < MAX_REF_CHAIN && h.outDegree(x - r) > 0) {
+                        trial.reset();
+                        writeList(trial, h, x, r, s);
+                        if (trial.length() < bestBits) {
+                            bestBits = trial.length();
+                            best = r;
+                        }
+                    }
+                }
+            }
+            writeList(out, h, x, best, s);
+            chain[x] = best == 0 ? 0 : chain[x - best] + 1;
+        }
+        offsets[n] = out.length();
+
+        //die Knoten sind nach URL sortiert, das Woerterbuch braucht also keine Umnummerierung
+        UrlDictionary dictionary = null;
+        if (urls != null) {
+            String[] sortedUrls = new String[n];
+            for (int x = 0; x < n; x++) {
+                sortedUrls[x] = urls[pages[x]];
+            }
+            dictionary = UrlDictionary.build(sortedUrls);
+        }
+        return new CompressedGraph(n, h.edgeCount(), out.toArray(), offsets, pages, nodes,
+                dictionary);
+    }
+
+    /**
+     * Komprimiert den Graphen einer LinkMatrix (graph, falls gesetzt, sonst L)
+     */
+    public static CompressedGraph fromLinkMatrix(LinkMatrix lm) {
+        LinkGraph g = lm.graph != null ? lm.graph : LinkGraph.fromLinkMatrix(lm.L);
+        return build(g, lm.urls);
+    }
+
+    /**
+     * Anzahl der Knoten
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Anzahl der Links
+     */
+    public long edgeCount() {
+        return edges;
+    }
+
+    /**
+     * Bits der Nachbarlisten pro Link (ohne Bitpositionen und Umnummerierung)
+     */
+    public double bitsPerLink() {
+        return edges == 0 ? 0.0 : (double) offsets[n] / edges;
+    }
+
+    /**
+     * Die urspruengliche Seitennummer von Knoten x
+     */
+    public int page(int x) {
+        return pages[x];
+    }
+
+    /**
+     * Der Knoten der urspruenglichen Seite page
+     */
+    public int node(int page) {
+        return nodes[page];
+    }
+
+    /**
+     * Die URL von Knoten x (null, wenn ohne URLs aufgebaut)
+     */
+    public String url(int x) {
+        return urls == null ? null : urls.url(x);
+    }
+
+    /**
+     * Der Knoten mit der URL url oder -1
+     */
+    public int node(String url) {
+        return urls == null ? -1 : urls.id(url);
+    }
+
+    public int outDegree(int x) {
+        return (int) new BitReader(bits, offsets[x]).readGamma();
+    }
+
+    /**
+     * Schreibt die Knoten, auf die x verlinkt, aufsteigend nach dest[from ..]
+     * und liefert ihre Anzahl. dest muss gross genug sein (outDegree(x)).
+     */
+    public int successors(int x, int[] dest, int from) {
+        BitReader in = new BitReader(bits, offsets[x]);
+        int deg = (int) in.readGamma();
+        if (deg == 0) {
+            return 0;
+        }
+        int r = (int) in.readGamma();
+        int[] ref = r > 0 ? successors(x - r) : null;
+        return decodeList(x, deg, in, ref, ref == null ? 0 : ref.length, dest, from,
+                new Scratch());
+    }
+
+    public int[] successors(int x) {
+        int[] dest = new int[outDegree(x)];
+        successors(x, dest, 0);
+        return dest;
+    }
+
+    /**
+     * Laeuft der Reihe nach ueber alle Knoten
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Sequentieller Zugriff: next() geht zum naechsten Knoten, successors()
+     * enthaelt dann dessen degree() Ziele. Das Array wird wiederverwendet und
+     * ist nur bis zum naechsten Aufruf von next() gueltig.
+     */
+    public class Cursor {
+
+        private final BitReader in = new BitReader(bits, 0);
+        private final Scratch scratch = new Scratch();
+
+        //die letzten WINDOW + 1 Listen, Knoten x in Slot x % (WINDOW + 1)
+        private final int[][] window = new int[WINDOW + 1][16];
+        private final int[] windowDegree = new int[WINDOW + 1];
+        private int x = -1;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            if (x + 1 >= n) {
+                return false;
+            }
+            x++;
+            int slot = x % (WINDOW + 1);
+            int deg = (int) in.readGamma();
+            windowDegree[slot] = deg;
+            if (deg > 0) {
+                if (window[slot].length < deg) {
+                    window[slot] = new int[Math.max(deg, 2 * window[slot].length)];
+                }
+                int r = (int) in.readGamma();
+                int refSlot = (x - r) % (WINDOW + 1);
+                decodeList(x, deg, in, r > 0 ? window[refSlot] : null,
+                        r > 0 ? windowDegree[refSlot] : 0, window[slot], 0, scratch);
+            }
+            return true;
+        }
+
+        public int node() {
+            return x;
+        }
+
+        public int degree() {
+            return windowDegree[x % (WINDOW + 1)];
+        }
+
+        public int[] successors() {
+            return window[x % (WINDOW + 1)];
+        }
+    }
+
+    /**
+     * Der Graph als LinkGraph in der Knotennummerierung
+     */
+    public LinkGraph toLinkGraph() {
+        if (edges > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Zu viele Links fuer einen LinkGraph: " + edges);
+        }
+        int[] offs = new int[n + 1];
+        int[] targets = new int[(int) edges];
+        Cursor c = cursor();
+        while (c.next()) {
+            int x = c.node();
+            System.arraycopy(c.successors(), 0, targets, offs[x], c.degree());
+            offs[x + 1] = offs[x] + c.degree();
+        }
+        return new LinkGraph(n, offs, targets);
+    }
+
+    /**
+     * PageRank wie SparsePageRank.rank, aber direkt auf den komprimierten
+     * Listen: pro Iteration wird jede Liste einmal dekodiert und der Rang
+     * entlang der Links verteilt (push). Die Raenge im Ergebnis sind nach den
+     * urspruenglichen Seitennummern indiziert.
+     */
+    public SparsePageRank.Result rank(double rho, double tol, int maxIter) {
+        double[] p = new double[n];
+        Arrays.fill(p, 1.0 / n);
+        double[] acc = new double[n];
+
+        int iter = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iter < maxIter && residual > tol) {
+            Arrays.fill(acc, 0.0);
+            double dangling = 0.0;
+            Cursor c = cursor();
+            while (c.next()) {
+                int deg = c.degree();
+                int x = c.node();
+                if (deg == 0) {
+                    dangling += p[x];
+                } else {
+                    double share = p[x] / deg;
+                    int[] succ = c.successors();
+                    for (int k = 0; k < deg; k++) {
+                        acc[succ[k]] += share;
+                    }
+                }
+            }
+
+            double base = (1 - rho) * dangling / n + rho / n;
+            residual = 0.0;
+            for (int x = 0; x < n; x++) {
+                double v = base + (1 - rho) * acc[x];
+                residual += Math.abs(v - p[x]);
+                p[x] = v;
+            }
+            iter++;
+        }
+
+        double[] rank = new double[n];
+        for (int x = 0; x < n; x++) {
+            rank[pages[x]] = p[x];
+        }
+        SparsePageRank.normalize(rank);
+        return new SparsePageRank.Result(rank, iter, residual, residual <= tol);
+    }
+
+    //Kodierung der Liste von x mit Referenz x - r (r = 0: ohne Referenz)
+    private static void writeList(BitWriter out, LinkGraph h, int x, int r, Scratch s) {
+        int from = h.offsets[x];
+        int to = h.offsets[x + 1];
+        int deg = to - from;
+        out.writeGamma(deg);
+        if (deg == 0) {
+            return;
+        }
+        out.writeGamma(r);
+
+        //Ziele, die nicht aus der Referenzliste kopiert werden
+        s.ensure(deg, r > 0 ? h.outDegree(x - r) + 1 : 0);
+        int[] extra = s.residual;
+        int extraCount = 0;
+        if (r > 0) {
+            int[] blocks = s.copied;
+            int blockCount = 0;
+            int k = from;
+            boolean copying = true;
+            int run = 0;
+            for (int i = h.offsets[x - r]; i < h.offsets[x - r + 1]; i++) {
+                int t = h.targets[i];
+                while (k < to && h.targets[k] < t) {
+                    extra[extraCount++] = h.targets[k++];
+                }
+                boolean contained = k < to && h.targets[k] == t;
+                if (contained) {
+                    k++;
+                }
+                if (contained == copying) {
+                    run++;
+                } else {
+                    blocks[blockCount++] = run;
+                    copying = !copying;
+                    run = 1;
+                }
+            }
+            while (k < to) {
+                extra[extraCount++] = h.targets[k++];
+            }
+
+            out.writeGamma(blockCount);
+            for (int b = 0; b < blockCount; b++) {
+                out.writeGamma(b == 0 ? blocks[0] : blocks[b] - 1);
+            }
+        } else {
+            System.arraycopy(h.targets, from, extra, 0, deg);
+            extraCount = deg;
+        }
+
+        //Intervalle heraussuchen, der Rest bleibt (nach vorne geschoben) in extra
+        int[] left = s.expanded;
+        int[] length = s.lengths;
+        int intervals = 0;
+        int residuals = 0;
+        for (int i = 0; i < extraCount;) {
+            int j = i + 1;
+            while (j < extraCount && extra[j] == extra[j - 1] + 1) {
+                j++;
+            }
+            if (j - i >= MIN_INTERVAL) {
+                left[intervals] = extra[i];
+                length[intervals++] = j - i;
+            } else {
+                while (i < j) {
+                    extra[residuals++] = extra[i++];
+                }
+            }
+            i = j;
+        }
+
+        out.writeGamma(intervals);
+        long end = 0;
+        for (int i = 0; i < intervals; i++) {
+            out.writeGamma(i == 0 ? zigzag((long) left[0] - x) : left[i] - end - 1);
+            out.writeGamma(length[i] - MIN_INTERVAL);
+            end = (long) left[i] + length[i];
+        }
+        for (int i = 0; i < residuals; i++) {
+            out.writeZeta(i == 0 ? zigzag((long) extra[0] - x) : (long) extra[i] - extra[i - 1] - 1);
+        }
+    }
+
+    //dekodiert den Rest der Liste von x (nach Ausgrad und Referenz) nach dest[from ..]
+    private static int decodeList(int x, int deg, BitReader in, int[] ref, int refDeg, int[] dest,
+            int from, Scratch s) {
+        s.ensure(deg, refDeg);
+
+        int copied = 0;
+        if (ref != null) {
+            int blockCount = (int) in.readGamma();
+            int i = 0;
+            boolean copying = true;
+            for (int b = 0; b < blockCount; b++) {
+                int len = (int) in.readGamma() + (b == 0 ? 0 : 1);
+                if (copying) {
+                    System.arraycopy(ref, i, s.copied, copied, len);
+                    copied += len;
+                }
+                i += len;
+                copying = !copying;
+            }
+            if (copying && i < refDeg) {
+                System.arraycopy(ref, i, s.copied, copied, refDeg - i);
+                copied += refDeg - i;
+            }
+        }
+
+        int intervals = (int) in.readGamma();
+        int expanded = 0;
+        long end = 0;
+        for (int i = 0; i < intervals; i++) {
+            long gap = in.readGamma();
+            long left = i == 0 ? x + unzigzag(gap) : end + gap + 1;
+            int len = (int) in.readGamma() + MIN_INTERVAL;
+            for (int k = 0; k < len; k++) {
+                s.expanded[expanded++] = (int) left + k;
+            }
+            end = left + len;
+        }
+
+        int residuals = deg - copied - expanded;
+        long t = 0;
+        for (int i = 0; i < residuals; i++) {
+            long z = in.readZeta();
+            t = i == 0 ? x + unzigzag(z) : t + z + 1;
+            s.residual[i] = (int) t;
+        }
+
+        //die drei aufsteigenden, disjunkten Folgen zusammenfuehren, meist ist eine davon leer
+        if (expanded == 0) {
+            merge(s.copied, copied, s.residual, residuals, dest, from);
+        } else if (residuals == 0) {
+            merge(s.copied, copied, s.expanded, expanded, dest, from);
+        } else {
+            merge(s.expanded, expanded, s.residual, residuals, s.lengths, 0);
+            merge(s.copied, copied, s.lengths, expanded + residuals, dest, from);
+        }
+        return deg;
+    }
+
+    private static void merge(int[] a, int aLength, int[] b, int bLength, int[] dest, int from) {
+        int i = 0;
+        int j = 0;
+        int k = from;
+        while (i < aLength && j < bLength) {
+            dest[k++] = a[i] < b[j] ? a[i++] : b[j++];
+        }
+        System.arraycopy(a, i, dest, k, aLength - i);
+        System.arraycopy(b, j, dest, k + aLength - i, bLength - j);
+    }
+
+    private static int[] identity(int n) {
+        int[] pages = new int[n];
+        for (int i = 0; i < n; i++) {
+            pages[i] = i;
+        }
+        return pages;
+    }
+
+    //g mit Knoten x = nodes[page], Listen sortiert
+    private static LinkGraph renumber(LinkGraph g, int[] pages, int[] nodes) {
+        int n = g.size();
+        int[] offs = new int[n + 1];
+        for (int x = 0; x < n; x++) {
+            offs[x + 1] = offs[x] + g.outDegree(pages[x]);
+        }
+        int[] targets = new int[offs[n]];
+        for (int x = 0; x < n; x++) {
+            int k = offs[x];
+            int page = pages[x];
+            for (int i = g.offsets[page]; i < g.offsets[page + 1]; i++) {
+                targets[k++] = nodes[g.targets[i]];
+            }
+            Arrays.sort(targets, offs[x], offs[x + 1]);
+        }
+        return new LinkGraph(n, offs, targets);
+    }
+
+    static long zigzag(long x) {
+        return (x << 1) ^ (x >> 63);
+    }
+
+    static long unzigzag(long x) {
+        return (x >>> 1) ^ -(x & 1);
+    }
+
+    //Hilfsarrays fuer Kodierung und Dekodierung einer Liste
+    private static class Scratch {
+
+        int[] copied = new int[16];
+        int[] expanded = new int[16];
+        int[] residual = new int[16];
+        int[] lengths = new int[16];
+
+        void ensure(int deg, int refDeg) {
+            if (copied.length < Math.max(deg, refDeg)) {
+                copied = new int[Math.max(deg, refDeg)];
+            }
+            if (expanded.length < deg) {
+                expanded = new int[deg];
+                residual = new int[deg];
+                lengths = new int[deg];
+            }
+        }
+    }
+
+    //Bitfolge, hoechstwertiges Bit eines long zuerst
+    private static class BitWriter {
+
+        private long[] words = new long[16];
+        private long length = 0;
+
+        long length() {
+            return length;
+        }
+
+        void reset() {
+            Arrays.fill(words, 0, (int) ((length + 63) >>> 6), 0L);
+            length = 0;
+        }
+
+        //die unteren count Bits von value (count <= 64)
+        void writeBits(long value, int count) {
+            if (count == 0) {
+                return;
+            }
+            int w = (int) (length >>> 6);
+            if (w + 1 >= words.length) {
+                words = Arrays.copyOf(words, 2 * words.length);
+            }
+            if (count < 64) {
+                value &= (1L << count) - 1;
+            }
+            int free = 64 - (int) (length & 63);
+            if (count <= free) {
+                words[w] |= value << (free - count);
+            } else {
+                words[w] |= value >>> (count - free);
+                words[w + 1] |= value << (64 - (count - free));
+            }
+            length += count;
+        }
+
+        //Elias-gamma fuer x >= 0: Stellen von x+1 unaer, dann x+1 binaer
+        void writeGamma(long x) {
+            long v = x + 1;
+            int b = 64 - Long.numberOfLeadingZeros(v);
+            writeBits(0, b - 1);
+            writeBits(v, b);
+        }
+
+        //zeta_k fuer x >= 0: h = floor(log2(x+1) / k) unaer, dann x+1 - 2^hk minimal binaer
+        void writeZeta(long x) {
+            long v = x + 1;
+            int h = (63 - Long.numberOfLeadingZeros(v)) / ZETA_K;
+            writeBits(1, h + 1);
+            long m = 1L << (h * ZETA_K);
+            long value = v - m;
+            int s = h * ZETA_K + ZETA_K;
+            if (value < m) {
+                writeBits(value, s - 1);
+            } else {
+                writeBits(value + m, s);
+            }
+        }
+
+        //ein long mehr als noetig, damit BitReader immer zwei Woerter lesen kann
+        long[] toArray() {
+            return Arrays.copyOf(words, (int) ((length + 63) >>> 6) + 1);
+        }
+    }
+
+    private static class BitReader {
+
+        private final long[] words;
+        private long pos;
+
+        BitReader(long[] words, long pos) {
+            this.words = words;
+            this.pos = pos;
+        }
+
+        long readBits(int count) {
+            if (count == 0) {
+                return 0;
+            }
+            int w = (int) (pos >>> 6);
+            int o = (int) (pos & 63);
+            pos += count;
+            if (o + count <= 64) {
+                return (words[w] << o) >>> (64 - count);
+            }
+            int rest = count - (64 - o);
+            return ((words[w] << o) >>> o) << rest | (words[w + 1] >>> (64 - rest));
+        }
+
+        //Anzahl der Nullen vor der naechsten Eins (die Eins wird mitgelesen)
+        int readUnary() {
+            int zeros = 0;
+            while (true) {
+                int o = (int) (pos & 63);
+                long word = words[(int) (pos >>> 6)] << o;
+                if (word != 0) {
+                    int z = Long.numberOfLeadingZeros(word);
+                    pos += z + 1;
+                    return zeros + z;
+                }
+                zeros += 64 - o;
+                pos += 64 - o;
+            }
+        }
+
+        //die naechsten 64 Bits ab pos (ohne pos zu veraendern)
+        private long peek() {
+            int w = (int) (pos >>> 6);
+            int o = (int) (pos & 63);
+            return o == 0 ? words[w] : words[w] << o | words[w + 1] >>> (64 - o);
+        }
+
+        long readGamma() {
+            //kurze Codes (die allermeisten) direkt aus einem Wort
+            long word = peek();
+            int z = Long.numberOfLeadingZeros(word);
+            if (z < 32) {
+                pos += 2 * z + 1;
+                return (word >>> (63 - 2 * z)) - 1;
+            }
+            z = readUnary();
+            return ((1L << z) | readBits(z)) - 1;
+        }
+
+        long readZeta() {
+            long word = peek();
+            int h = Long.numberOfLeadingZeros(word);
+            int s = h * ZETA_K + ZETA_K;
+            long m = 1L << (h * ZETA_K);
+            if (h + s < 64) {
+                //Unaerteil h + 1 Bits, dann s - 1 oder s Bits
+                long value = (word << (h + 1)) >>> (65 - s);
+                if (value >= m) {
+                    value = ((word << (h + 1)) >>> (64 - s)) - m;
+                    pos += h + 1 + s;
+                } else {
+                    pos += h + s;
+                }
+                return value + m - 1;
+            }
+            h = readUnary();
+            s = h * ZETA_K + ZETA_K;
+            m = 1L << (h * ZETA_K);
+            long value = readBits(s - 1);
+            if (value >= m) {
+                value = ((value << 1) | readBits(1)) - m;
+            }
+            return value + m - 1;
+        }
+    }
+}
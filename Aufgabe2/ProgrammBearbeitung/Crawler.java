@@ -1,115 +1,168 @@
 import java.net.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Crawler {
+	/* Zahl der gleichzeitig geladenen Seiten, falls nicht angegeben */
+	public static final int DEFAULT_CONCURRENCY = 64;
+
 	private String outFile;
 	private String[] startPoints;
 	private int maxDepth;
 	private String filter;
-	private int maxThreads = 10;
-	private int threadCount = 0;
 	/* Zahl der entdeckten Seiten mit depth<maxDepth */
-	private int pageCount = 0;
+	private AtomicInteger pageCount = new AtomicInteger();
 	/* Zahl der Seiten die bereits gecrawlt wurden */
-	private int crawledCount = 0;
-	/* enthaelt jede Seite, die gecrawlt oder zum Queue hinzugefuegt wurde */
-	private TreeMap<String, Page> pages = new TreeMap<String, Page>();
-	private Queue<QueuedPage> q = new LinkedList<QueuedPage>();
-	private LinkedList<QueuedPage> currentCrawls = new LinkedList<QueuedPage>();
-	private boolean canceled = false, finished = false;
+	private AtomicInteger crawledCount = new AtomicInteger();
+	/* Zahl der Seiten, die noch geladen werden oder in der Warteschlange sind */
+	private AtomicInteger pending = new AtomicInteger();
+	/*
+	 * enthaelt jede Seite, die gecrawlt oder zum Queue hinzugefuegt wurde. Die
+	 * Reihenfolge der Schluessel wird nie gebraucht (die Nummer einer Seite ist
+	 * ihre Entdeckungsreihenfolge), daher eine Hashtabelle: O(1) statt O(log n)
+	 * String-Vergleiche pro Link. Fuer die fertige Ausgabe s.
+	 * UrlDictionary.fromLinkMatrix.
+	 */
+	private ConcurrentHashMap<String, Page> pages = new ConcurrentHashMap<String, Page>();
+	/*
+	 * Die Worker laden die Seiten; ihre Warteschlange ist die Queue der noch
+	 * zu crawlenden Seiten
+	 */
+	private ExecutorService pool;
+	private Set<QueuedPage> currentCrawls = ConcurrentHashMap.newKeySet();
+	private volatile boolean canceled = false, finished = false;
 
 	public Crawler(String outputFile, String[] startURLs, int maxCrawlDepth,
 			String URLfilter) {
+		this(outputFile, startURLs, maxCrawlDepth, URLfilter,
+				DEFAULT_CONCURRENCY);
+	}
+
+	/**
+	 * Startet den Crawl mit concurrency Worker-Threads, d.h. es werden
+	 * hoechstens so viele Seiten gleichzeitig geladen.
+	 */
+	public Crawler(String outputFile, String[] startURLs, int maxCrawlDepth,
+			String URLfilter, int concurrency) {
 		outFile = outputFile;
 		startPoints = startURLs;
 		maxDepth = maxCrawlDepth;
 		filter = URLfilter;
+		pool = Executors.newFixedThreadPool(Math.max(1, concurrency));
 
-		// Queue mit Start-URLs initialisieren
+		// Queue mit Start-URLs initialisieren, pending erst danach freigeben,
+		// damit der Crawl nicht vor der letzten Start-URL als fertig gilt
+		pending.incrementAndGet();
 		for (String s : startPoints) {
 			s = s.toLowerCase();
-			pages.put(s, new Page(s, pageCount));
-			pageCount++;
-			q.add(new QueuedPage(s, 0));
+			Page p = new Page(s, -1);
+			if (pages.putIfAbsent(s, p) == null) {
+				p.nbr = pageCount.getAndIncrement();
+				schedule(new QueuedPage(s, 0));
+			}
 		}
+		taskFinished();
+	}
 
-		startThreads();
+	public void cancel() {
+		canceled = true;
 	}
 
-	public synchronized void startThreads() {
-		QueuedPage qp;
+	private void schedule(QueuedPage qp) {
+		pending.incrementAndGet();
+		pool.execute(() -> crawl(qp));
+	}
 
-		while (!q.isEmpty() && threadCount < maxThreads && !canceled) {
-			qp = q.poll();
-			new CrawlerThread(qp, this);
+	/* laeuft in einem Worker: Seite laden und neue Links einreihen */
+	private void crawl(QueuedPage qp) {
+		try {
+			if (canceled)
+				return;
 			currentCrawls.add(qp);
-			threadCount++;
-		}
-
-		// bereite Output vor, falls alle Threads fertig sind und keine weiteren
-		// Seite zum Crawlen anstehen
-		if ((q.isEmpty() || canceled) && threadCount == 0) {
-			LinkMatrix lm = getLinkMatrix();
+			LinkedList<String> links;
 			try {
-				lm.write(outFile);
+				System.out.println(qp.url);
+				links = getLinks(readPage(qp.url), qp.url);
 			} catch (Exception e) {
-				System.out.println(outFile
-						+ " konnte nicht geschrieben werden.");
+				System.out.println("Exception:" + e.getMessage());
+				links = new LinkedList<String>();
 			}
-			finished = true;
+			addLinks(qp, links);
+			currentCrawls.remove(qp);
+			crawledCount.incrementAndGet();
+		} finally {
+			taskFinished();
 		}
 	}
 
-	public void cancel() {
-		canceled = true;
-	}
-
-	public synchronized void threadFinished(QueuedPage qp,
-			LinkedList<String> links) {
-		Page currentPage;
-		Page temp;
-		currentPage = pages.get(qp.url);
+	/*
+	 * Nur der Worker, der eine Seite crawlt, aendert ihre Links, daher ist
+	 * hier keine Synchronisation noetig. Neue Seiten werden per putIfAbsent
+	 * genau einmal angelegt und eingereiht.
+	 */
+	private void addLinks(QueuedPage qp, LinkedList<String> links) {
+		Page currentPage = pages.get(qp.url);
 
 		for (String s : links)
 			if (s.startsWith(filter)) {
 				// System.out.println("[" + qp.depth + "]" + currentPage.url +
 				// " -> " + s);
-				if (pages.containsKey(s))
-					currentPage.links.add(pages.get(s));
+				Page target = pages.get(s);
 				// Es werden nur Seiten beruecksichtigt, die auch gecrawlt
 				// werden um PR-Senken zu vermeiden
-				else if (qp.depth < maxDepth) {
-					temp = new Page(s, pageCount);
-					pages.put(s, temp);
-					pageCount++;
-					currentPage.links.add(temp);
-					q.add(new QueuedPage(s, qp.depth + 1));
+				if (target == null && qp.depth < maxDepth) {
+					Page temp = new Page(s, -1);
+					target = pages.putIfAbsent(s, temp);
+					if (target == null) {
+						temp.nbr = pageCount.getAndIncrement();
+						target = temp;
+						schedule(new QueuedPage(s, qp.depth + 1));
+					}
 				}
+				if (target != null)
+					currentPage.links.add(target);
 			}
+	}
 
-		currentCrawls.remove(qp);
-		threadCount--;
-		crawledCount++;
-		startThreads();
+	/*
+	 * Ist die letzte Seite fertig, wird die Ausgabe geschrieben. pending wird
+	 * fuer neue Seiten erhoeht, bevor die entdeckende Seite fertig ist, kann
+	 * also erst am Ende 0 werden.
+	 */
+	private void taskFinished() {
+		if (pending.decrementAndGet() == 0) {
+			pool.shutdown();
+			LinkMatrix lm = getLinkMatrix();
+			try {
+				lm.write(outFile);
+			} catch (Exception e) {
+				System.out.println(outFile
+						+ " konnte nicht geschrieben werden.");
+			}
+			finished = true;
+		}
 	}
 
-	public synchronized String getStatus() {
-		String s = "";
+	public String getStatus() {
+		StringBuilder s = new StringBuilder();
 		if (finished) {
-			s += "Crawl abgeschlossen\n";
+			s.append("Crawl abgeschlossen\n");
 		} else {
 			if (canceled) {
-				s += "Es werden keine neuen Seiten gecrawlt. Vorgang wird beendet, "
-						+ "wenn alle momentan laufenden Threads fertig sind.\n";
+				s.append("Es werden keine neuen Seiten gecrawlt. Vorgang wird beendet, "
+						+ "wenn alle momentan laufenden Threads fertig sind.\n");
 			}
-			s += "* Aktive Threads ([Tiefe]URL) *\n";
+			s.append("* Aktive Threads ([Tiefe]URL) *\n");
 			for (QueuedPage qp : currentCrawls)
-				s += "[" + qp.depth + "]" + qp.url + "\n";
+				s.append("[" + qp.depth + "]" + qp.url + "\n");
 		}
-		s += crawledCount + " Seiten gecrawlt";
+		s.append(crawledCount.get() + " Seiten gecrawlt");
 
-		return s;
+		return s.toString();
 	}
 
 	public boolean hasFinished() {
@@ -118,7 +171,8 @@ public class Crawler {
 
 	private LinkMatrix getLinkMatrix() {
 		// erzeuge Matrix
-		int L[][] = new int[pageCount][pageCount];
+		int n = pageCount.get();
+		int L[][] = new int[n][n];
 		for (Page j : pages.values()) {
 			L[j.nbr][j.nbr] = 1;
 			for (Page i : j.links)
@@ -128,45 +182,17 @@ public class Crawler {
 		// stelle Output zusammen
 		LinkMatrix lm = new LinkMatrix();
 		lm.L = L;
-		lm.urls = new String[pageCount];
+		lm.urls = new String[n];
 		for (Page p : pages.values())
 			lm.urls[p.nbr] = p.url;
 
 		return lm;
 	}
 
-	private class CrawlerThread implements Runnable {
-		private Crawler parent;
-		private QueuedPage qp;
-
-		public CrawlerThread(QueuedPage page, Crawler parent) {
-			this.parent = parent;
-			qp = page;
-			(new Thread(this)).start();
-		}
-
-		public void run() {
-			// Page currentPage;
-			LinkedList<String> links;
-
-			// currentPage = pages.get(qp.url);
-			try {
-				System.out.println(qp.url);
-
-				links = getLinks(readPage(qp.url), qp.url);
-
-				parent.threadFinished(qp, links);
-			} catch (Exception e) {
-				System.out.println("Exception:" + e.getMessage());
-				parent.threadFinished(qp, new LinkedList<String>());
-			}
-		}
-	}
-
 	private static class Page {
 		public String url;
 		public int nbr;
-		public LinkedList<Page> links = new LinkedList<Page>();
+		public ArrayList<Page> links = new ArrayList<Page>();
 
 		public Page(String u, int n) {
 			url = u;
@@ -195,21 +221,25 @@ public class Crawler {
 		InputStream is = uc.getInputStream();
 		BufferedReader br = new BufferedReader(new InputStreamReader(is));
 
-		String s = "";
+		StringBuilder s = new StringBuilder();
 		String temp = "";
 		Boolean firstLine = true;
-		while (temp != null && s.length() < maxSize) {
-			temp = br.readLine();
-			if (temp != null) {
-				if (!firstLine)
-					s += "\n";
-				else
-					firstLine = false;
-				s += temp;
+		try {
+			while (temp != null && s.length() < maxSize) {
+				temp = br.readLine();
+				if (temp != null) {
+					if (!firstLine)
+						s.append('\n');
+					else
+						firstLine = false;
+					s.append(temp);
+				}
 			}
+		} finally {
+			br.close();
 		}
 
-		return s;
+		return s.toString();
 	}
 
 	public static LinkedList<String> getLinks(String data, String url) {
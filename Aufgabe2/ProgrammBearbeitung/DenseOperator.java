@@ -0,0 +1,34 @@
+/**
+ * RowOperator fuer eine dicht besetzte Matrix double[n][n]. Die Matrix wird
+ * nicht kopiert.
+ */
+public class DenseOperator implements RowOperator {
+
+    private final double[][] A;
+
+    public DenseOperator(double[][] A) {
+        this.A = A;
+    }
+
+    @Override
+    public int size() {
+        return A.length;
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        for (int i = 0; i < A.length; i++) {
+            y[i] = Gauss.KERNELS.dot(A[i], x, 0, x.length);
+        }
+    }
+
+    @Override
+    public double rowDot(int i, double[] x) {
+        return Gauss.KERNELS.dot(A[i], x, 0, x.length);
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return A[i][i];
+    }
+}
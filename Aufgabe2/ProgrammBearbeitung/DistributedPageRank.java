@@ -0,0 +1,339 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PageRank verteilt auf mehrere Worker-Prozesse (PageRankWorker), fuer
+ * Graphen, deren Raenge und Links nicht in einen Heap passen. Seite v gehoert
+ * Worker v mod N und hat dort die lokale Nummer v / N. Jeder Worker liest die
+ * ausgehenden Links seiner Seiten selbst aus einer Graphdatei (GraphFile) und
+ * haelt nur diese und die Raenge seiner Seiten. Der Koordinator kennt nur die
+ * Seitenzahl und sammelt am Ende den Rangvektor.
+ *
+ * Pro Iteration verteilt jeder Worker den Rang seiner Seiten entlang der
+ * Links (push). Beitraege an Seiten eines anderen Workers werden pro
+ * Zielseite summiert und ueber den Koordinator weitergereicht. Welche Seiten
+ * ein Worker von einem anderen erhaelt, wird beim Start einmal ausgetauscht,
+ * danach werden pro Iteration nur noch die Werte in dieser Reihenfolge
+ * uebertragen. Der Koordinator sammelt Residuum und Rang der Seiten ohne
+ * Links, prueft die Konvergenz und holt am Ende die Raenge ab.
+ *
+ * Die Verbindungen laufen ueber Sockets auf der lokalen Schnittstelle. Auf
+ * die Verbindung der Worker wird hoechstens CONNECT_TIMEOUT, auf jede
+ * Antwort hoechstens READ_TIMEOUT Millisekunden gewartet. Bricht ein lokal
+ * gestarteter Worker ab, wird das beim Warten bemerkt. Das Ergebnis ist
+ * dasselbe wie bei SparsePageRank.rank (bis auf tol).
+ */
+public class DistributedPageRank {
+
+    //Befehle des Koordinators an die Worker
+    static final byte ITERATE = 1;
+    static final byte GATHER = 2;
+
+    //Puffergroesse der Streams
+    static final int BUFFER = 1 << 16;
+
+    //Wartezeiten in ms: Verbindung aller Worker, jede Antwort, Pruefintervall fuer lokale Worker
+    static final int CONNECT_TIMEOUT = 60000;
+    static final int READ_TIMEOUT = 600000;
+    static final int POLL_INTERVAL = 100;
+
+    //so viele Sekunden duerfen sich die Worker nach dem Abholen der Raenge zum Beenden lassen
+    static final int EXIT_TIMEOUT = 10;
+
+    /**
+     * Wie rank(graphFile, ...), der Graph g wird dazu in eine temporaere
+     * Graphdatei geschrieben.
+     */
+    public static SparsePageRank.Result rank(LinkGraph g, double rho, double tol, int maxIter,
+            int workers, String... jvmArgs) throws IOException {
+        File file = File.createTempFile("pagerank", ".graph");
+        try {
+            GraphFile.write(file.getPath(), g, null);
+            return rank(file.getPath(), rho, tol, maxIter, workers, jvmArgs);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Berechnet die PageRanks des Graphen in der Graphdatei graphFile mit
+     * workers lokal gestarteten Worker-Prozessen (gleiche JVM und gleicher
+     * Klassenpfad wie der Aufrufer). Jeder Worker liest seine Seiten selbst
+     * aus der Datei. jvmArgs werden an jeden Worker uebergeben, z.B. "-Xmx2g".
+     */
+    public static SparsePageRank.Result rank(String graphFile, double rho, double tol,
+            int maxIter, int workers, String... jvmArgs) throws IOException {
+        int n;
+        try (GraphFile f = GraphFile.open(graphFile)) {
+            n = f.size();
+        }
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            List<Process> processes = new ArrayList<Process>();
+            try {
+                String java = System.getProperty("java.home") + File.separator + "bin"
+                        + File.separator + "java";
+                for (int id = 0; id < workers; id++) {
+                    List<String> command = new ArrayList<String>();
+                    command.add(java);
+                    for (String arg : jvmArgs) {
+                        command.add(arg);
+                    }
+                    command.add("-cp");
+                    command.add(System.getProperty("java.class.path"));
+                    command.add("PageRankWorker");
+                    command.add(server.getInetAddress().getHostAddress());
+                    command.add(Integer.toString(server.getLocalPort()));
+                    command.add(Integer.toString(id));
+                    command.add(new File(graphFile).getAbsolutePath());
+                    processes.add(new ProcessBuilder(command).inheritIO().start());
+                }
+
+                SparsePageRank.Result r = run(n, rho, tol, maxIter, server, workers, processes);
+                for (Process p : processes) {
+                    if (!p.waitFor(EXIT_TIMEOUT, TimeUnit.SECONDS)) {
+                        //die Raenge sind schon abgeholt, der Rest wird unten beendet
+                        break;
+                    }
+                }
+                return r;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Warten auf die Worker unterbrochen", e);
+            } finally {
+                for (Process p : processes) {
+                    p.destroy();
+                }
+            }
+        }
+    }
+
+    /**
+     * Berechnet die PageRanks eines Graphen mit n Seiten mit workers Workern,
+     * die sich selbst mit server verbinden (z.B. auf anderen Rechnern
+     * gestartet mit java PageRankWorker host port id graphFile, id von 0 bis
+     * workers - 1, jeder mit einer Kopie der Graphdatei).
+     */
+    public static SparsePageRank.Result rank(int n, double rho, double tol, int maxIter,
+            ServerSocket server, int workers) throws IOException {
+        return run(n, rho, tol, maxIter, server, workers, null);
+    }
+
+    //processes: die lokal gestarteten Worker (Index = Nummer) oder null
+    private static SparsePageRank.Result run(int n, double rho, double tol, int maxIter,
+            ServerSocket server, int workers, List<Process> processes) throws IOException {
+        Socket[] sockets = new Socket[workers];
+        DataInputStream[] in = new DataInputStream[workers];
+        DataOutputStream[] out = new DataOutputStream[workers];
+        try {
+            long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+            server.setSoTimeout(processes == null ? CONNECT_TIMEOUT : POLL_INTERVAL);
+            for (int k = 0; k < workers; k++) {
+                Socket s = null;
+                while (s == null) {
+                    try {
+                        s = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        checkAlive(processes, null);
+                        if (System.currentTimeMillis() >= deadline) {
+                            throw new IOException("Nach " + CONNECT_TIMEOUT + " ms erst " + k
+                                    + " von " + workers + " Workern verbunden");
+                        }
+                    }
+                }
+                s.setTcpNoDelay(true);
+                s.setSoTimeout(READ_TIMEOUT);
+                DataInputStream i = new DataInputStream(
+                        new BufferedInputStream(s.getInputStream(), BUFFER));
+                int id = i.readInt();
+                int size = i.readInt();
+                if (id < 0 || id >= workers || sockets[id] != null) {
+                    s.close();
+                    throw new IOException("Ungueltige Worker-Nummer " + id);
+                }
+                sockets[id] = s;
+                in[id] = i;
+                out[id] = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), BUFFER));
+                if (size != n) {
+                    throw new IOException("Worker " + id + " hat einen Graphen mit " + size
+                            + " statt " + n + " Seiten");
+                }
+            }
+
+            for (int w = 0; w < workers; w++) {
+                out[w].writeInt(workers);
+                out[w].writeDouble(rho);
+                out[w].flush();
+            }
+
+            //sendCount[i][w]: Anzahl der Werte, die Worker i pro Iteration an w schickt
+            int[][] sendCount = new int[workers][workers];
+            int[][][] lists = new int[workers][workers][];
+            for (int i = 0; i < workers; i++) {
+                for (int w = 0; w < workers; w++) {
+                    if (w != i) {
+                        lists[i][w] = readInts(in[i]);
+                        sendCount[i][w] = lists[i][w].length;
+                    }
+                }
+            }
+            for (int w = 0; w < workers; w++) {
+                for (int i = 0; i < workers; i++) {
+                    if (i != w) {
+                        writeInts(out[w], lists[i][w]);
+                    }
+                }
+                out[w].flush();
+            }
+            lists = null;
+
+            double dangling = 0.0;
+            for (int w = 0; w < workers; w++) {
+                dangling += in[w].readDouble();
+            }
+
+            double[][][] values = new double[workers][workers][];
+            int iter = 0;
+            double residual = Double.POSITIVE_INFINITY;
+            while (iter < maxIter && residual > tol) {
+                double base = (1 - rho) * dangling / n + rho / n;
+                for (int w = 0; w < workers; w++) {
+                    out[w].writeByte(ITERATE);
+                    out[w].writeDouble(base);
+                    out[w].flush();
+                }
+
+                //erst alle Beitraege lesen, dann weiterreichen, damit kein Worker beim Schreiben blockiert
+                for (int i = 0; i < workers; i++) {
+                    for (int w = 0; w < workers; w++) {
+                        if (w != i) {
+                            values[i][w] = readDoubles(in[i], sendCount[i][w], values[i][w]);
+                        }
+                    }
+                }
+                for (int w = 0; w < workers; w++) {
+                    for (int i = 0; i < workers; i++) {
+                        if (i != w) {
+                            writeDoubles(out[w], values[i][w], sendCount[i][w]);
+                        }
+                    }
+                    out[w].flush();
+                }
+
+                residual = 0.0;
+                dangling = 0.0;
+                for (int w = 0; w < workers; w++) {
+                    residual += in[w].readDouble();
+                    dangling += in[w].readDouble();
+                }
+                iter++;
+            }
+
+            double[] p = new double[n];
+            for (int w = 0; w < workers; w++) {
+                out[w].writeByte(GATHER);
+                out[w].flush();
+            }
+            for (int w = 0; w < workers; w++) {
+                for (int v = w; v < n; v += workers) {
+                    p[v] = in[w].readDouble();
+                }
+            }
+
+            SparsePageRank.normalize(p);
+            return new SparsePageRank.Result(p, iter, residual, residual <= tol);
+        } catch (IOException e) {
+            //abgebrochene Verbindung oder Zeitueberschreitung: ist ein lokaler Worker beendet, das melden
+            awaitExit(processes, POLL_INTERVAL);
+            checkAlive(processes, e);
+            throw e;
+        } finally {
+            for (Socket s : sockets) {
+                if (s != null) {
+                    s.close();
+                }
+            }
+        }
+    }
+
+    //wartet hoechstens millis ms, bis einer der lokal gestarteten Worker beendet ist
+    private static void awaitExit(List<Process> processes, long millis) {
+        if (processes == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + millis;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                for (Process p : processes) {
+                    if (!p.isAlive()) {
+                        return;
+                    }
+                }
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //wirft eine IOException, wenn einer der lokal gestarteten Worker schon beendet ist
+    private static void checkAlive(List<Process> processes, IOException cause) throws IOException {
+        if (processes == null) {
+            return;
+        }
+        for (int id = 0; id < processes.size(); id++) {
+            Process p = processes.get(id);
+            if (!p.isAlive()) {
+                throw new IOException("Worker " + id + " wurde mit Code " + p.exitValue()
+                        + " beendet", cause);
+            }
+        }
+    }
+
+    //Anzahl der Seiten v < n mit v mod workers == w
+    static int localCount(int n, int w, int workers) {
+        return n <= w ? 0 : (n - w + workers - 1) / workers;
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = in.readInt();
+        }
+        return values;
+    }
+
+    static void writeDoubles(DataOutputStream out, double[] values, int count) throws IOException {
+        for (int k = 0; k < count; k++) {
+            out.writeDouble(values[k]);
+        }
+    }
+
+    //liest count Werte, buffer wird verwendet, falls gross genug
+    static double[] readDoubles(DataInputStream in, int count, double[] buffer) throws IOException {
+        if (buffer == null || buffer.length < count) {
+            buffer = new double[count];
+        }
+        for (int k = 0; k < count; k++) {
+            buffer[k] = in.readDouble();
+        }
+        return buffer;
+    }
+}
@@ -386,14 +386,13 @@ class Search extends JFrame implements ActionListener {
 					LinkMatrix lm = new LinkMatrix();
 					lm.read(file.getAbsolutePath());
 					double rho = Double.parseDouble(rhofield.getText());
-					double[] rank = PageRank.rank(lm.L, rho);
-					Arrays.sort(rank);
-					String r[] = PageRank.getSortedURLs(lm.urls, lm.L, rho);
+					Ranking ranking = PageRank.ranking(lm.urls, lm.L, rho);
+					int top[] = ranking.topK(20);
 					textarea.setText("");
-					for (int i = 0; i < r.length && i < 20; i++) {
-						textarea.append((int) (10000 * rank[rank.length - i - 1])
+					for (int i = 0; i < top.length; i++) {
+						textarea.append((int) (10000 * ranking.score(top[i]))
 								/ 100.0 + "%\t");
-						textarea.append(r[i] + "\n");
+						textarea.append(ranking.url(top[i]) + "\n");
 					}
 
 					System.out.println("Opening: " + file.getName() + ".\n");
@@ -1,6 +1,12 @@
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Gauss {
 
+    //innere Schleifen, skalar oder mit der Vector API (s. GaussKernels)
+    static final GaussKernels KERNELS = GaussKernels.select();
+
     /**
      * Diese Methode soll die Loesung x des LGS R*x=b durch
      * Rueckwaertssubstitution ermitteln. PARAMETER: R: Eine obere
@@ -14,24 +20,13 @@ public class Gauss {
         //Loesungsvektor initialisieren
         double[] x = new double[n];
 
-        //bereits berechnete Zeilen
-        int k = 0;
-
         //löst x von unten nach oben zeilenweise
         for (int i = n - 1; i >= 0; i--) {
 
-            //Akkumulator
-            double acc = 0.0;
-
             //summiert alle Summanden der Zeile mit bereits bekanntem x auf
-            for (int j = n - 1; j > n - k; j--) {
-                acc += x[j] * R[i][j];
-            }
+            double acc = KERNELS.dot(R[i], x, i + 1, n);
 
             x[i] = (b[i] - acc) / R[i][i];
-
-            //naechste Zeile wurde berechnet
-            k++;
         }
 
         return x;
@@ -44,9 +39,22 @@ public class Gauss {
      * Vektor der Laenge n
      */
     public static double[] solve(double[][] A, double[] b) {
+        return solve(A, b, false);
+    }
+
+    /**
+     * Wie solve, die Zeilenupdates unterhalb des Pivots werden aber fuer
+     * grosse Matrizen auf den ForkJoinPool verteilt. Pivotwahl und Ergebnis
+     * sind identisch zu solve, da jede Zeile unabhaengig aktualisiert wird.
+     */
+    public static double[] solveParallel(double[][] A, double[] b) {
+        return solve(A, b, true);
+    }
+
+    private static double[] solve(double[][] A, double[] b, boolean parallel) {
 
         //kopieren da A und b unverändert bleiben sollen
-        double[][] Acopy = A.clone();
+        double[][] Acopy = copyMatrix(A);
         double[] bcopy = b.clone();
         int length = bcopy.length;
         for (int n = 0; n < length; n++) {
@@ -82,24 +90,24 @@ public class Gauss {
             }
 
             //Werte unter dem biggestValue auf 0 bringen
-            for (int i = (n + 1); i < length; i++) {
-                if (Acopy[i][n] != 0) {
-                    double lineFactor = Acopy[i][n] / Acopy[n][n];
-
-                    //Pivotzeile mit Faktor abziehen
-                    for (int j = n; j < length; j++) {
-                        Acopy[i][j] = Acopy[i][j] - (lineFactor * Acopy[n][j]);
-                    }
-
-                    bcopy[i] = bcopy[i] - (lineFactor * bcopy[n]);
-                }
-            }
-
+            eliminate(Acopy, bcopy, n, parallel);
         }
 
         return backSubst(Acopy, bcopy);
     }
 
+    /**
+     * Loest A*x=b fuer eine Matrix, die als TiledMatrix in einer Datei liegt
+     * und damit groesser als der Heap sein darf. Im Gegensatz zu solve wird A
+     * dabei mit seiner LU-Zerlegung ueberschrieben; weitere Aufrufe mit
+     * derselben Matrix verwenden die vorhandene Zerlegung. b wird nicht
+     * veraendert.
+     */
+    public static double[] solve(TiledMatrix A, double[] b) throws IOException {
+        A.factor();
+        return A.solve(b);
+    }
+
     /**
      * Diese Methode soll eine Loesung p!=0 des LGS A*p=0 ermitteln. A ist dabei
      * eine nicht invertierbare Matrix. A soll dabei nicht veraendert werden.
@@ -117,15 +125,26 @@ public class Gauss {
      * Eine singulaere Matrix der Groesse n x n
      */
     public static double[] solveSing(double[][] A) {
+        return solveSing(A, false);
+    }
+
+    /**
+     * Wie solveSing, die Elimination wird aber wie bei solveParallel fuer
+     * grosse Matrizen auf den ForkJoinPool verteilt. Das Ergebnis ist
+     * identisch zu solveSing.
+     */
+    public static double[] solveSingParallel(double[][] A) {
+        return solveSing(A, true);
+    }
+
+    private static double[] solveSing(double[][] A, boolean parallel) {
         //kopieren da A unveraendert bleiben soll
-        double[][] A_ = A.clone();
-        double[] result;
+        double[][] A_ = copyMatrix(A);
 
         double pMin = 0.0000000001;
-        boolean minReached = false;
 
         int n = A_.length;
-        int rowReached = 0;
+        int rowReached = n;
 
         //Gauss-Elimination mit Spalten-Pivotsuche
         for (int i = 0; i < n; i++) {
@@ -134,64 +153,501 @@ public class Gauss {
             int p = i;
             for (int j = i; j < n; j++){
                 if (Math.abs(A_[j][i]) > Math.abs(A_[p][i])) p = j;
-                
-                if (Math.abs(A_[j][i]) < pMin) minReached |= true;
             }
-            
-            rowReached = i + 1;
+
             //Verlassen der Schleife, falls keine gueltigen Pivots gefunden werden koennen
-            if(minReached) break;
-            
+            if (Math.abs(A_[p][i]) < pMin) {
+                rowReached = i;
+                break;
+            }
+
             //vertausche die Zeilen
             if (p != i) swapRow(A_, p, i);
-            
+
             //Elimination
-            for (int j = i + 1; j < n; j++){
-                
-                //untere Dreiecksmatrix sollte tatsaechlich 0 sein
-                A_[j][i] = 0.0;
-                
-                //Elimination der restlichen Elemente der Zeile
-                for (int k = i + 1; k < n; k++){
-                    double x = A_[k][i] / A_[i][i];
-                    A[k][i] -= x;
-                }
-            }
-        }
-        
-        /*
-        Util.printMatrix(A);
-        System.out.println();
-        Util.printMatrix(A_);
-        System.out.println();
-        */
-        
+            eliminate(A_, null, i, parallel);
+        }
+
         if (rowReached == n) {
             double[] nullVector = new double[n];
             return nullVector;
         }
-        
+
         //T und -v initialisieren
         double[][] T = new double[rowReached][rowReached];
         double[] _v = new double[rowReached];
-        
-        /*
-        Util.printMatrix(T);
-        System.out.println();
-        Util.printVector(_v);
-        System.out.println();
-        */
-        
+
         //befuellen
         for (int i = 0; i < rowReached; i++){
-            
-            _v[i] = A_[i][rowReached];
+
+            _v[i] = -A_[i][rowReached];
             for (int j = 0; j < rowReached; j++){
                 T[i][j] = A_[i][j];
             }
         }
-        
-        return backSubst(T, _v);
+
+        //(x,1,0,...,0) zusammensetzen
+        double[] x = backSubst(T, _v);
+        double[] result = new double[n];
+        System.arraycopy(x, 0, result, 0, rowReached);
+        result[rowReached] = 1.0;
+
+        return result;
+    }
+
+    //ab dieser Anzahl zu aktualisierender Eintraege lohnt sich die Parallelisierung
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    //Eliminiert alle Eintraege unter dem Pivot A[n][n], b darf null sein
+    private static void eliminate(double[][] A, double[] b, int n, boolean parallel) {
+        int length = A.length;
+        int rows = length - n - 1;
+        if (parallel && (long) rows * (length - n) >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new EliminationTask(A, b, n, n + 1, length));
+        } else {
+            eliminateRows(A, b, n, n + 1, length);
+        }
+    }
+
+    //Eliminiert in den Zeilen from..to-1 die Spalte n mit der Pivotzeile n
+    private static void eliminateRows(double[][] A, double[] b, int n, int from, int to) {
+        int length = A.length;
+        double[] pivotRow = A[n];
+        for (int i = from; i < to; i++) {
+            double[] row = A[i];
+            if (row[n] != 0) {
+                double lineFactor = row[n] / pivotRow[n];
+
+                //Pivotzeile mit Faktor abziehen
+                KERNELS.subtractScaled(row, pivotRow, lineFactor, n, length);
+
+                if (b != null) {
+                    b[i] = b[i] - (lineFactor * b[n]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Teilt den Zeilenbereich unter dem Pivot rekursiv auf, bis ein Teil
+     * klein genug fuer die sequentielle Elimination ist.
+     */
+    private static class EliminationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] A;
+        private final double[] b;
+        private final int n, from, to;
+
+        EliminationTask(double[][] A, double[] b, int n, int from, int to) {
+            this.A = A;
+            this.b = b;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (to - from) * (A.length - n) <= PARALLEL_THRESHOLD / 4 || to - from < 2) {
+                eliminateRows(A, b, n, from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new EliminationTask(A, b, n, from, mid),
+                        new EliminationTask(A, b, n, mid, to));
+            }
+        }
+    }
+
+    /**
+     * Loest A*x=b mit der guenstigsten passenden Zerlegung: ist A symmetrisch,
+     * wird zuerst Cholesky versucht (nur bei positiver Diagonale, sonst kann A
+     * nicht positiv definit sein), dann LDL^T nach Bunch-Kaufman. Beide
+     * speichern nur ein Dreieck. Unsymmetrische oder singulaer erscheinende
+     * Matrizen werden mit solve geloest. A und b werden nicht veraendert.
+     */
+    public static double[] solveAuto(double[][] A, double[] b) {
+        if (isSymmetric(A)) {
+            if (hasPositiveDiagonal(A)) {
+                Cholesky c = Cholesky.tryFactor(A);
+                if (c != null) {
+                    return c.solve(b);
+                }
+            }
+
+            LDLT ldlt = LDLT.tryFactor(A);
+            if (ldlt != null) {
+                return ldlt.solve(b);
+            }
+        }
+
+        return solve(A, b);
+    }
+
+    //bricht beim ersten unsymmetrischen Eintrag ab, im unsymmetrischen Fall meist sehr frueh
+    private static boolean isSymmetric(double[][] A) {
+        int n = A.length;
+        for (int i = 0; i < n; i++) {
+            if (A[i].length != n) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (A[i][j] != A[j][i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPositiveDiagonal(double[][] A) {
+        for (int i = 0; i < A.length; i++) {
+            if (!(A[i][i] > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Diese Methode zerlegt A einmalig mit Spaltenpivotisierung in P*A = L*U.
+     * Die zurueckgegebene Zerlegung kann anschliessend beliebig viele rechte
+     * Seiten in O(n^2) loesen, ohne die Elimination zu wiederholen. A wird
+     * dabei nicht veraendert. PARAMETER: A: Eine regulaere Matrix der Groesse
+     * n x n
+     */
+    public static LU factor(double[][] A) {
+        double[][] LU = copyMatrix(A);
+        int n = LU.length;
+
+        //perm[i] = urspruengliche Zeile, die nach den Vertauschungen in Zeile i steht
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+
+        for (int k = 0; k < n; k++) {
+
+            //betragsgroesstes Pivot-Element in Spalte k suchen
+            int p = k;
+            for (int i = k + 1; i < n; i++) {
+                if (Math.abs(LU[i][k]) > Math.abs(LU[p][k])) {
+                    p = i;
+                }
+            }
+
+            //Zeilen samt bereits berechneter L-Faktoren vertauschen
+            if (p != k) {
+                double[] tmp = LU[k];
+                LU[k] = LU[p];
+                LU[p] = tmp;
+
+                int tmp2 = perm[k];
+                perm[k] = perm[p];
+                perm[p] = tmp2;
+            }
+
+            //L-Faktoren unter der Diagonale ablegen, Restmatrix aktualisieren
+            double[] pivotRow = LU[k];
+            for (int i = k + 1; i < n; i++) {
+                double[] row = LU[i];
+                if (row[k] != 0) {
+                    double lineFactor = row[k] / pivotRow[k];
+                    row[k] = lineFactor;
+                    KERNELS.subtractScaled(row, pivotRow, lineFactor, k + 1, n);
+                }
+            }
+        }
+
+        return new LU(LU, perm);
+    }
+
+    /**
+     * Wie factor, verwendet aber die blockweise Zerlegung aus BlockedLU auf
+     * einer zusammenhaengend gespeicherten Kopie von A. Fuer grosse n (ab
+     * einigen hundert) deutlich schneller, da die Restmatrix cachefreundlich
+     * aktualisiert wird. A wird dabei nicht veraendert.
+     */
+    public static LU factorBlocked(double[][] A) {
+        int n = A.length;
+
+        //zeilenweise in ein zusammenhaengendes Array kopieren
+        double[] a = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(A[i], 0, a, i * n, n);
+        }
+
+        int[] perm = new int[n];
+        BlockedLU.factor(a, n, perm);
+
+        double[][] LU = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a, i * n, LU[i], 0, n);
+        }
+
+        return new LU(LU, perm);
+    }
+
+    /**
+     * Loest A*x=b wie solve, aber mit der blockweisen Zerlegung aus
+     * factorBlocked. A und b werden nicht veraendert.
+     */
+    public static double[] solveBlocked(double[][] A, double[] b) {
+        return factorBlocked(A).solve(b);
+    }
+
+    /**
+     * Eine LU-Zerlegung P*A = L*U. L (mit Einsen auf der Diagonale) und U
+     * liegen gemeinsam in einer Matrix, die Zeilenvertauschungen in perm.
+     */
+    public static class LU {
+
+        private final double[][] LU;
+        private final int[] perm;
+
+        LU(double[][] LU, int[] perm) {
+            this.LU = LU;
+            this.perm = perm;
+        }
+
+        /**
+         * Loest A*x=b durch Vorwaerts- und Rueckwaertssubstitution in O(n^2).
+         * b wird nicht veraendert.
+         */
+        public double[] solve(double[] b) {
+            int n = perm.length;
+
+            //P*b bilden
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                y[i] = b[perm[i]];
+            }
+
+            //L*y = P*b, danach U*x = y
+            forwardSubst(LU, y);
+            return backSubst(LU, y);
+        }
+
+        /**
+         * Loest A*X=B fuer eine n x m Matrix B, d.h. fuer jede Spalte von B
+         * eine eigene rechte Seite. B wird nicht veraendert.
+         */
+        public double[][] solve(double[][] B) {
+            int n = perm.length;
+            int m = n == 0 ? 0 : B[0].length;
+
+            double[][] X = new double[n][m];
+            double[] column = new double[n];
+            for (int k = 0; k < m; k++) {
+                for (int i = 0; i < n; i++) {
+                    column[i] = B[i][k];
+                }
+
+                double[] x = solve(column);
+                for (int i = 0; i < n; i++) {
+                    X[i][k] = x[i];
+                }
+            }
+
+            return X;
+        }
+
+        /**
+         * Gibt die Zeilenpermutation zurueck: Zeile i von L*U entspricht Zeile
+         * getPermutation()[i] von A.
+         */
+        public int[] getPermutation() {
+            return perm.clone();
+        }
+    }
+
+    //maximale Zahl der Nachiterationen in solveMixed (wie dsgesv in LAPACK)
+    private static final int MAX_REFINEMENT = 30;
+
+    /**
+     * Loest A*x=b mit gemischter Genauigkeit: A wird in float zerlegt (halbe
+     * Speicherbandbreite), die Loesung anschliessend durch Nachiteration mit
+     * in double berechneten Residuen r = b - A*x auf double-Genauigkeit
+     * gebracht. Konvergiert die Nachiteration nicht (z.B. bei schlecht
+     * konditioniertem A), wird mit factor(A) in double geloest. A und b werden
+     * nicht veraendert.
+     */
+    public static double[] solveMixed(double[][] A, double[] b) {
+        int n = A.length;
+
+        FloatLU lu = FloatLU.factor(A);
+        if (lu != null) {
+            double normA = normInf(A);
+
+            //Abbruch wie in LAPACK: ||r|| <= ||x|| * ||A|| * eps * sqrt(n)
+            double tolerance = normA * Math.ulp(1.0) * Math.sqrt(n);
+
+            double[] x = lu.solve(b);
+            double lastCorrection = Double.POSITIVE_INFINITY;
+            for (int iter = 0; iter < MAX_REFINEMENT; iter++) {
+                double[] r = matrixVectorMult(A, x);
+                for (int i = 0; i < n; i++) {
+                    r[i] = b[i] - r[i];
+                }
+
+                if (normInf(r) <= normInf(x) * tolerance) {
+                    return x;
+                }
+
+                //Korrektur d aus A*d = r, mit der float-Zerlegung
+                double[] d = lu.solve(r);
+                double correction = normInf(d);
+
+                //Korrekturen muessen schrumpfen, sonst divergiert das Verfahren
+                if (!(correction < 0.5 * lastCorrection)) {
+                    break;
+                }
+                lastCorrection = correction;
+
+                for (int i = 0; i < n; i++) {
+                    x[i] += d[i];
+                }
+            }
+        }
+
+        //Rueckfall auf die Zerlegung in double
+        return factor(A).solve(b);
+    }
+
+    //Zeilensummennorm einer Matrix
+    private static double normInf(double[][] A) {
+        double max = 0.0;
+        for (int i = 0; i < A.length; i++) {
+            double sum = 0.0;
+            for (int j = 0; j < A[i].length; j++) {
+                sum += Math.abs(A[i][j]);
+            }
+            max = Math.max(max, sum);
+        }
+        return max;
+    }
+
+    //Maximumsnorm eines Vektors, NaN ergibt unendlich
+    private static double normInf(double[] x) {
+        double max = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            double v = Math.abs(x[i]);
+            if (!(v <= max)) {
+                max = Double.isNaN(v) ? Double.POSITIVE_INFINITY : v;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * LU-Zerlegung mit Spaltenpivotisierung in float fuer solveMixed.
+     */
+    private static class FloatLU {
+
+        private final float[][] LU;
+        private final int[] perm;
+
+        private FloatLU(float[][] LU, int[] perm) {
+            this.LU = LU;
+            this.perm = perm;
+        }
+
+        //null, falls ein Pivot in float 0 wird oder nicht endlich ist
+        static FloatLU factor(double[][] A) {
+            int n = A.length;
+            float[][] LU = new float[n][n];
+            int[] perm = new int[n];
+            for (int i = 0; i < n; i++) {
+                perm[i] = i;
+                for (int j = 0; j < n; j++) {
+                    LU[i][j] = (float) A[i][j];
+                }
+            }
+
+            for (int k = 0; k < n; k++) {
+                int p = k;
+                for (int i = k + 1; i < n; i++) {
+                    if (Math.abs(LU[i][k]) > Math.abs(LU[p][k])) {
+                        p = i;
+                    }
+                }
+
+                if (LU[p][k] == 0 || !Float.isFinite(LU[p][k])) {
+                    return null;
+                }
+
+                if (p != k) {
+                    float[] tmp = LU[k];
+                    LU[k] = LU[p];
+                    LU[p] = tmp;
+
+                    int tmp2 = perm[k];
+                    perm[k] = perm[p];
+                    perm[p] = tmp2;
+                }
+
+                float[] pivotRow = LU[k];
+                for (int i = k + 1; i < n; i++) {
+                    float[] row = LU[i];
+                    if (row[k] != 0) {
+                        float lineFactor = row[k] / pivotRow[k];
+                        row[k] = lineFactor;
+                        for (int j = k + 1; j < n; j++) {
+                            row[j] -= lineFactor * pivotRow[j];
+                        }
+                    }
+                }
+            }
+
+            return new FloatLU(LU, perm);
+        }
+
+        //loest A*x=b in float, Ein- und Ausgabe in double
+        double[] solve(double[] b) {
+            int n = perm.length;
+            float[] y = new float[n];
+            for (int i = 0; i < n; i++) {
+                y[i] = (float) b[perm[i]];
+            }
+
+            for (int i = 1; i < n; i++) {
+                float acc = 0;
+                for (int j = 0; j < i; j++) {
+                    acc += LU[i][j] * y[j];
+                }
+                y[i] -= acc;
+            }
+
+            double[] x = new double[n];
+            for (int i = n - 1; i >= 0; i--) {
+                float acc = 0;
+                for (int j = i + 1; j < n; j++) {
+                    acc += LU[i][j] * y[j];
+                }
+                y[i] = (y[i] - acc) / LU[i][i];
+                x[i] = y[i];
+            }
+
+            return x;
+        }
+    }
+
+    //loest L*y = b in-place, L untere Dreiecksmatrix mit Einsen auf der Diagonale
+    private static void forwardSubst(double[][] L, double[] y) {
+        int n = y.length;
+        for (int i = 1; i < n; i++) {
+            y[i] -= KERNELS.dot(L[i], y, 0, i);
+        }
+    }
+
+    //tiefe Kopie, A.clone() wuerde die Zeilen nur referenzieren
+    private static double[][] copyMatrix(double[][] A) {
+        double[][] copy = new double[A.length][];
+        for (int i = 0; i < A.length; i++) {
+            copy[i] = A[i].clone();
+        }
+        return copy;
     }
 
     //Zeile i wird mit j vertauscht
@@ -216,10 +672,7 @@ public class Gauss {
         double[] y = new double[n];
 
         for (int i = 0; i < n; i++) {
-            y[i] = 0;
-            for (int j = 0; j < m; j++) {
-                y[i] += A[i][j] * x[j];
-            }
+            y[i] = KERNELS.dot(A[i], x, 0, m);
         }
 
         return y;
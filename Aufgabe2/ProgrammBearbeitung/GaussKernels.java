@@ -0,0 +1,72 @@
+/**
+ * Die inneren Schleifen von Gauss (Zeilenupdate, Skalarprodukt). Die
+ * Implementierung wird beim Laden von Gauss einmal ausgewaehlt: ist die Klasse
+ * VectorKernels (Verzeichnis vector/, benoetigt das Modul
+ * jdk.incubator.vector) vorhanden und lauffaehig, wird sie verwendet, sonst die
+ * skalare Variante. Mit -Dgauss.kernels=scalar laesst sich die skalare Variante
+ * erzwingen.
+ *
+ * Uebersetzen und Starten mit Vektor-Backend:
+ * javac --add-modules jdk.incubator.vector *.java vector/*.java
+ * java --add-modules jdk.incubator.vector Test
+ */
+interface GaussKernels {
+
+    /**
+     * y[j] = y[j] - factor * x[j] fuer from <= j < to
+     */
+    void subtractScaled(double[] y, double[] x, double factor, int from, int to);
+
+    /**
+     * Skalarprodukt von x und y ueber from <= j < to
+     */
+    double dot(double[] x, double[] y, int from, int to);
+
+    /**
+     * Name der Implementierung, z.B. fuer Ausgaben in Tests
+     */
+    String name();
+
+    static GaussKernels select() {
+        if (!"scalar".equals(System.getProperty("gauss.kernels"))) {
+            try {
+                GaussKernels k = (GaussKernels) Class.forName("VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+
+                //einmal ausfuehren, damit ein fehlendes Modul hier auffaellt
+                k.dot(new double[1], new double[1], 0, 1);
+                return k;
+            } catch (Throwable e) {
+                //Klasse oder Modul nicht vorhanden: skalare Variante
+            }
+        }
+        return new Scalar();
+    }
+
+    /**
+     * Skalare Standardimplementierung
+     */
+    class Scalar implements GaussKernels {
+
+        @Override
+        public void subtractScaled(double[] y, double[] x, double factor, int from, int to) {
+            for (int j = from; j < to; j++) {
+                y[j] = y[j] - (factor * x[j]);
+            }
+        }
+
+        @Override
+        public double dot(double[] x, double[] y, int from, int to) {
+            double acc = 0.0;
+            for (int j = from; j < to; j++) {
+                acc += x[j] * y[j];
+            }
+            return acc;
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
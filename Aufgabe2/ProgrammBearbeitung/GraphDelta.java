@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/**
+ * Aenderungen an einem LinkGraph zwischen zwei Crawls: neue Seiten (werden
+ * mit fortlaufenden Nummern hinten angehaengt), neue und entfernte Links und
+ * entfernte Seiten. Eine entfernte Seite behaelt ihre Nummer, damit alle
+ * anderen Nummern und Rangvektoren gueltig bleiben; sie verliert nur alle ein-
+ * und ausgehenden Links. Angewandt wird die Aenderung mit LinkGraph.apply.
+ */
+public class GraphDelta {
+
+    int addedPages = 0;
+
+    int[] addFrom = new int[16], addTo = new int[16];
+    int addCount = 0;
+
+    int[] removeFrom = new int[16], removeTo = new int[16];
+    int removeCount = 0;
+
+    int[] removedPages = new int[16];
+    int removedPageCount = 0;
+
+    /**
+     * Haengt count neue Seiten an. Liefert die Nummer der ersten neuen Seite
+     * relativ zum alten Graphen der Groesse n, d.h. die neuen Seiten haben die
+     * Nummern n + Rueckgabewert bis n + Rueckgabewert + count - 1.
+     */
+    public int addPages(int count) {
+        int first = addedPages;
+        addedPages += count;
+        return first;
+    }
+
+    public void addLink(int from, int to) {
+        if (addCount == addFrom.length) {
+            addFrom = Arrays.copyOf(addFrom, 2 * addCount);
+            addTo = Arrays.copyOf(addTo, 2 * addCount);
+        }
+        addFrom[addCount] = from;
+        addTo[addCount] = to;
+        addCount++;
+    }
+
+    public void removeLink(int from, int to) {
+        if (removeCount == removeFrom.length) {
+            removeFrom = Arrays.copyOf(removeFrom, 2 * removeCount);
+            removeTo = Arrays.copyOf(removeTo, 2 * removeCount);
+        }
+        removeFrom[removeCount] = from;
+        removeTo[removeCount] = to;
+        removeCount++;
+    }
+
+    public void removePage(int page) {
+        if (removedPageCount == removedPages.length) {
+            removedPages = Arrays.copyOf(removedPages, 2 * removedPageCount);
+        }
+        removedPages[removedPageCount++] = page;
+    }
+
+    public int getAddedPages() {
+        return addedPages;
+    }
+
+    /**
+     * Ungefaehre Zahl der geaenderten Links und Seiten
+     */
+    public int size() {
+        return addedPages + addCount + removeCount + removedPageCount;
+    }
+}
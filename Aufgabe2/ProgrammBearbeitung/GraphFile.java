@@ -0,0 +1,320 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binaeres Dateiformat fuer einen Linkgraphen mit URLs. Die Datei wird beim
+ * Oeffnen nur in den Speicher eingeblendet (memory-mapped), Nachbarlisten
+ * und URLs werden erst beim Zugriff aus den Bytes gelesen.
+ *
+ * Dateiaufbau (big-endian):
+ *
+ * Kopf: int MAGIC, int n, long Anzahl Links, long Laenge der Nachbarlisten,
+ * long Laenge der URL-Daten
+ *
+ * (n+1) long: Anfang der Nachbarliste jeder Seite im Listenbereich
+ *
+ * Listenbereich: pro Seite v die Anzahl der Links, das erste Ziel als
+ * Abstand zu v (vorzeichenbehaftet, zigzag) und dann die Luecken
+ * t[k] - t[k-1] - 1 der aufsteigend sortierten Ziele, alles als varint (7 Bit
+ * pro Byte, hoechstes Bit = weiteres Byte folgt)
+ *
+ * (n+1) long: Anfang jeder URL im URL-Bereich
+ *
+ * URL-Bereich: die URLs in UTF-8 hintereinander
+ *
+ * Da Links meist auf Seiten mit nahen Nummern zeigen, braucht ein Link so
+ * oft nur ein bis zwei Bytes statt n Zeichen pro Zeile wie in der Textdatei.
+ * Jeder Bereich muss kleiner als 2 GB sein.
+ */
+public class GraphFile implements Closeable {
+
+    private static final int MAGIC = 0x4e504731;
+    private static final int HEADER_BYTES = 32;
+
+    private final RandomAccessFile file;
+    private final int n;
+    private final long edges;
+
+    private final MappedByteBuffer offsets;
+    private final MappedByteBuffer lists;
+    private final MappedByteBuffer urlOffsets;
+    private final MappedByteBuffer urlData;
+
+    private GraphFile(RandomAccessFile file) throws IOException {
+        this.file = file;
+        if (file.length() < HEADER_BYTES || file.readInt() != MAGIC) {
+            throw new IOException("Keine Graphdatei");
+        }
+        n = file.readInt();
+        edges = file.readLong();
+        long listBytes = file.readLong();
+        long urlBytes = file.readLong();
+
+        long pos = HEADER_BYTES;
+        offsets = map(pos, 8L * (n + 1));
+        pos += 8L * (n + 1);
+        lists = map(pos, listBytes);
+        pos += listBytes;
+        urlOffsets = map(pos, 8L * (n + 1));
+        pos += 8L * (n + 1);
+        urlData = map(pos, urlBytes);
+        if (pos + urlBytes != file.length()) {
+            throw new IOException("Graphdatei hat falsche Laenge");
+        }
+    }
+
+    private MappedByteBuffer map(long pos, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Bereich der Graphdatei zu gross: " + size + " Bytes");
+        }
+        return file.getChannel().map(FileChannel.MapMode.READ_ONLY, pos, size);
+    }
+
+    /**
+     * Oeffnet eine mit write geschriebene Datei
+     */
+    public static GraphFile open(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "r");
+        try {
+            return new GraphFile(file);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Schreibt den Graphen g mit den URLs urls (urls[v] gehoert zu Seite v,
+     * darf null sein) nach filename.
+     */
+    public static void write(String filename, LinkGraph g, String[] urls) throws IOException {
+        int n = g.size();
+
+        //Laenge jeder Nachbarliste vorab, damit die Offsets vor den Listen stehen koennen
+        long listBytes = 0;
+        for (int v = 0; v < n; v++) {
+            listBytes += listLength(g, v);
+        }
+        byte[][] encodedUrls = new byte[n][];
+        long urlBytes = 0;
+        for (int v = 0; v < n; v++) {
+            encodedUrls[v] = urls == null || urls[v] == null ? new byte[0]
+                    : urls[v].getBytes(StandardCharsets.UTF_8);
+            urlBytes += encodedUrls[v].length;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeLong(g.edgeCount());
+            out.writeLong(listBytes);
+            out.writeLong(urlBytes);
+
+            long pos = 0;
+            for (int v = 0; v < n; v++) {
+                out.writeLong(pos);
+                pos += listLength(g, v);
+            }
+            out.writeLong(pos);
+
+            for (int v = 0; v < n; v++) {
+                int from = g.offsets[v];
+                int to = g.offsets[v + 1];
+                writeVarint(out, to - from);
+                if (to > from) {
+                    writeVarint(out, zigzag(g.targets[from] - v));
+                    for (int k = from + 1; k < to; k++) {
+                        writeVarint(out, g.targets[k] - g.targets[k - 1] - 1);
+                    }
+                }
+            }
+
+            pos = 0;
+            for (int v = 0; v < n; v++) {
+                out.writeLong(pos);
+                pos += encodedUrls[v].length;
+            }
+            out.writeLong(pos);
+            for (int v = 0; v < n; v++) {
+                out.write(encodedUrls[v]);
+            }
+        }
+    }
+
+    /**
+     * Wandelt eine Textdatei im Format von LinkMatrix in eine Graphdatei um.
+     * Die Datei wird mit LinkMatrixReader gelesen, die n x n Matrix also nie
+     * angelegt.
+     */
+    public static void fromText(String textFile, String graphFile) throws IOException {
+        LinkMatrix lm = new LinkMatrix();
+        lm.readSparse(textFile);
+        write(graphFile, lm.graph, lm.urls);
+    }
+
+    /**
+     * Wandelt eine Graphdatei in eine Textdatei im Format von LinkMatrix um.
+     * Die Zeilen werden aus den Linklisten erzeugt; die Datei selbst waechst
+     * aber quadratisch mit n, das ist nur fuer kleine Graphen sinnvoll.
+     */
+    public static void toText(String graphFile, String textFile) throws IOException {
+        try (GraphFile f = open(graphFile)) {
+            LinkMatrix lm = new LinkMatrix();
+            lm.graph = f.toLinkGraph();
+            lm.urls = f.urls();
+            lm.write(textFile);
+        }
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public long edgeCount() {
+        return edges;
+    }
+
+    public int outDegree(int v) {
+        return readVarint(lists, listStart(v));
+    }
+
+    /**
+     * Schreibt die Seiten, auf die v verlinkt, aufsteigend nach dest[from ..]
+     * und liefert ihre Anzahl. dest muss gross genug sein (outDegree(v)).
+     */
+    public int successors(int v, int[] dest, int from) {
+        int pos = listStart(v);
+        int deg = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = lists.get(pos++);
+            deg |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+
+        int t = v;
+        for (int k = 0; k < deg; k++) {
+            int x = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = lists.get(pos++);
+                x |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            t = k == 0 ? v + unzigzag(x) : t + x + 1;
+            dest[from + k] = t;
+        }
+        return deg;
+    }
+
+    public int[] successors(int v) {
+        int[] dest = new int[outDegree(v)];
+        successors(v, dest, 0);
+        return dest;
+    }
+
+    public String url(int v) {
+        int from = (int) urlOffsets.getLong(8 * v);
+        int to = (int) urlOffsets.getLong(8 * (v + 1));
+        byte[] bytes = new byte[to - from];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = urlData.get(from + k);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String[] urls() {
+        String[] urls = new String[n];
+        for (int v = 0; v < n; v++) {
+            urls[v] = url(v);
+        }
+        return urls;
+    }
+
+    /**
+     * Dekodiert alle Nachbarlisten in einen LinkGraph
+     */
+    public LinkGraph toLinkGraph() {
+        if (edges > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Zu viele Links fuer einen LinkGraph: " + edges);
+        }
+        int[] offs = new int[n + 1];
+        int[] targets = new int[(int) edges];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            count += successors(v, targets, count);
+            offs[v + 1] = count;
+        }
+        return new LinkGraph(n, offs, targets);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private int listStart(int v) {
+        return (int) offsets.getLong(8 * v);
+    }
+
+    private static long listLength(LinkGraph g, int v) {
+        int from = g.offsets[v];
+        int to = g.offsets[v + 1];
+        long length = varintLength(to - from);
+        if (to > from) {
+            length += varintLength(zigzag(g.targets[from] - v));
+            for (int k = from + 1; k < to; k++) {
+                length += varintLength(g.targets[k] - g.targets[k - 1] - 1);
+            }
+        }
+        return length;
+    }
+
+    static int zigzag(int x) {
+        return (x << 1) ^ (x >> 31);
+    }
+
+    static int unzigzag(int x) {
+        return (x >>> 1) ^ -(x & 1);
+    }
+
+    static int varintLength(int x) {
+        int length = 1;
+        while ((x & ~0x7f) != 0) {
+            x >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    static void writeVarint(DataOutputStream out, int x) throws IOException {
+        while ((x & ~0x7f) != 0) {
+            out.writeByte((x & 0x7f) | 0x80);
+            x >>>= 7;
+        }
+        out.writeByte(x);
+    }
+
+    static int readVarint(MappedByteBuffer buffer, int pos) {
+        int x = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(pos++);
+            x |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return x;
+            }
+            shift += 7;
+        }
+    }
+}
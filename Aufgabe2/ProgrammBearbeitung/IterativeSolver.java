@@ -0,0 +1,369 @@
+import java.util.Arrays;
+
+/**
+ * Iterative Loeser fuer A*x=b. Im Gegensatz zu Gauss wird A nur ueber
+ * Matrix-Vektor-Produkte (LinearOperator) verwendet, Speicher und Aufwand pro
+ * Iteration richten sich also nach der Darstellung von A.
+ *
+ * Alle Verfahren brechen ab, sobald das relative Residuum ||b - A*x|| / ||b||
+ * (euklidische Norm) kleiner als tol ist oder maxIter Iterationen erreicht
+ * sind. x0 ist der Startvektor und darf null sein (dann x0 = 0); er wird nicht
+ * veraendert.
+ */
+public class IterativeSolver {
+
+    /**
+     * Ergebnis eines iterativen Loesers: Loesung, Zahl der Iterationen und der
+     * Verlauf des relativen Residuums (Eintrag 0 gehoert zum Startvektor).
+     */
+    public static class Result {
+
+        public final double[] x;
+        public final int iterations;
+        public final boolean converged;
+        public final double[] residualHistory;
+
+        Result(double[] x, int iterations, boolean converged, double[] residualHistory) {
+            this.x = x;
+            this.iterations = iterations;
+            this.converged = converged;
+            this.residualHistory = residualHistory;
+        }
+
+        /**
+         * Relatives Residuum der zurueckgegebenen Loesung
+         */
+        public double residual() {
+            return residualHistory[residualHistory.length - 1];
+        }
+    }
+
+    /**
+     * Verfahren der konjugierten Gradienten. A muss symmetrisch positiv
+     * definit sein.
+     */
+    public static Result cg(LinearOperator A, double[] b, double[] x0, double tol, int maxIter) {
+        int n = A.size();
+        double[] x = start(n, x0);
+        double[] r = residual(A, b, x);
+        double[] p = r.clone();
+        double[] q = new double[n];
+
+        double normB = norm(b);
+        History history = new History(normB);
+        double rr = dot(r, r);
+        history.add(Math.sqrt(rr));
+
+        int iter = 0;
+        while (iter < maxIter && history.last() > tol) {
+            A.apply(p, q);
+            double pq = dot(p, q);
+            if (pq == 0) {
+                break;
+            }
+
+            double alpha = rr / pq;
+            axpy(alpha, p, x);
+            axpy(-alpha, q, r);
+
+            double rrNew = dot(r, r);
+            double beta = rrNew / rr;
+            rr = rrNew;
+            for (int i = 0; i < n; i++) {
+                p[i] = r[i] + beta * p[i];
+            }
+
+            iter++;
+            history.add(Math.sqrt(rr));
+        }
+
+        return history.result(x, iter, tol);
+    }
+
+    /**
+     * BiCGSTAB fuer allgemeine (auch unsymmetrische) regulaere Matrizen.
+     */
+    public static Result bicgstab(LinearOperator A, double[] b, double[] x0, double tol, int maxIter) {
+        int n = A.size();
+        double[] x = start(n, x0);
+        double[] r = residual(A, b, x);
+        double[] rHat = r.clone();
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] t = new double[n];
+
+        History history = new History(norm(b));
+        history.add(norm(r));
+
+        double rho = 1, alpha = 1, omega = 1;
+        int iter = 0;
+        while (iter < maxIter && history.last() > tol) {
+            double rhoNew = dot(rHat, r);
+            if (rhoNew == 0 || omega == 0) {
+                //Zusammenbruch des Verfahrens
+                break;
+            }
+
+            double beta = (rhoNew / rho) * (alpha / omega);
+            rho = rhoNew;
+            for (int i = 0; i < n; i++) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+
+            A.apply(p, v);
+            double rHatV = dot(rHat, v);
+            if (rHatV == 0) {
+                //Zusammenbruch, alpha waere unendlich
+                break;
+            }
+            alpha = rho / rHatV;
+            for (int i = 0; i < n; i++) {
+                s[i] = r[i] - alpha * v[i];
+            }
+
+            iter++;
+            double normS = norm(s);
+            if (normS <= tol * history.normB) {
+                axpy(alpha, p, x);
+                System.arraycopy(s, 0, r, 0, n);
+                history.add(normS);
+                break;
+            }
+
+            A.apply(s, t);
+            double tt = dot(t, t);
+            omega = tt == 0 ? 0 : dot(t, s) / tt;
+            for (int i = 0; i < n; i++) {
+                x[i] += alpha * p[i] + omega * s[i];
+                r[i] = s[i] - omega * t[i];
+            }
+
+            history.add(norm(r));
+        }
+
+        return history.result(x, iter, tol);
+    }
+
+    /**
+     * GMRES mit Neustart nach jeweils m Schritten. Gezaehlt werden die
+     * Matrix-Vektor-Produkte der Arnoldi-Iteration.
+     */
+    public static Result gmres(LinearOperator A, double[] b, double[] x0, int m, double tol, int maxIter) {
+        int n = A.size();
+        double[] x = start(n, x0);
+
+        History history = new History(norm(b));
+        double[] r = residual(A, b, x);
+        double beta = norm(r);
+        history.add(beta);
+
+        //Krylov-Basis, Hessenberg-Matrix und Givens-Rotationen
+        double[][] V = new double[m + 1][];
+        double[][] H = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+
+        int iter = 0;
+        while (iter < maxIter && history.last() > tol && beta > 0) {
+            V[0] = new double[n];
+            for (int i = 0; i < n; i++) {
+                V[0][i] = r[i] / beta;
+            }
+            Arrays.fill(g, 0.0);
+            g[0] = beta;
+
+            int k = 0;
+            while (k < m && iter < maxIter && history.last() > tol) {
+                //Arnoldi mit modifiziertem Gram-Schmidt
+                double[] w = new double[n];
+                A.apply(V[k], w);
+                for (int j = 0; j <= k; j++) {
+                    H[j][k] = dot(w, V[j]);
+                    axpy(-H[j][k], V[j], w);
+                }
+                H[k + 1][k] = norm(w);
+                if (H[k + 1][k] != 0) {
+                    for (int i = 0; i < n; i++) {
+                        w[i] /= H[k + 1][k];
+                    }
+                }
+                V[k + 1] = w;
+
+                //bisherige Rotationen anwenden, neue bestimmen
+                for (int j = 0; j < k; j++) {
+                    double tmp = cs[j] * H[j][k] + sn[j] * H[j + 1][k];
+                    H[j + 1][k] = -sn[j] * H[j][k] + cs[j] * H[j + 1][k];
+                    H[j][k] = tmp;
+                }
+                double d = Math.hypot(H[k][k], H[k + 1][k]);
+                cs[k] = H[k][k] / d;
+                sn[k] = H[k + 1][k] / d;
+                H[k][k] = d;
+                H[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+
+                k++;
+                iter++;
+
+                //|g[k]| ist das Residuum der aktuellen Naeherung
+                history.add(Math.abs(g[k]));
+            }
+
+            //y aus H*y = g loesen und x aktualisieren
+            double[] y = new double[k];
+            for (int i = k - 1; i >= 0; i--) {
+                double acc = g[i];
+                for (int j = i + 1; j < k; j++) {
+                    acc -= H[i][j] * y[j];
+                }
+                y[i] = acc / H[i][i];
+            }
+            for (int j = 0; j < k; j++) {
+                axpy(y[j], V[j], x);
+            }
+
+            //beim Neustart das tatsaechliche Residuum verwenden
+            r = residual(A, b, x);
+            beta = norm(r);
+            history.replaceLast(beta);
+        }
+
+        return history.result(x, iter, tol);
+    }
+
+    /**
+     * Jacobi-Verfahren. Konvergiert z.B. fuer strikt diagonaldominante A.
+     */
+    public static Result jacobi(RowOperator A, double[] b, double[] x0, double tol, int maxIter) {
+        int n = A.size();
+        double[] x = start(n, x0);
+        double[] xNew = new double[n];
+
+        History history = new History(norm(b));
+        int iter = 0;
+        while (true) {
+            //Residuum des aktuellen x und neues x in einem Durchlauf
+            double rr = 0.0;
+            for (int i = 0; i < n; i++) {
+                double ax = A.rowDot(i, x);
+                double d = A.diagonal(i);
+                rr += (b[i] - ax) * (b[i] - ax);
+                xNew[i] = (b[i] - ax + d * x[i]) / d;
+            }
+            history.add(Math.sqrt(rr));
+
+            if (iter >= maxIter || history.last() <= tol) {
+                break;
+            }
+
+            double[] tmp = x;
+            x = xNew;
+            xNew = tmp;
+            iter++;
+        }
+
+        return history.result(x, iter, tol);
+    }
+
+    /**
+     * Gauss-Seidel-Verfahren, die Komponenten von x werden in-place
+     * aktualisiert. Konvergiert z.B. fuer symmetrisch positiv definite oder
+     * strikt diagonaldominante A.
+     *
+     * Das Residuum wird waehrend des Durchlaufs mitberechnet (Zeile i vor
+     * ihrer Aktualisierung, mit den schon neuen x_j fuer j < i) und kostet so
+     * kein zusaetzliches Matrix-Vektor-Produkt. Es ist nur eine Schaetzung;
+     * faellt es unter tol, und am Ende, wird das tatsaechliche Residuum
+     * berechnet und als letzter Eintrag des Verlaufs verwendet.
+     */
+    public static Result gaussSeidel(RowOperator A, double[] b, double[] x0, double tol, int maxIter) {
+        int n = A.size();
+        double[] x = start(n, x0);
+
+        History history = new History(norm(b));
+        history.add(norm(residual(A, b, x)));
+
+        int iter = 0;
+        while (iter < maxIter && history.last() > tol) {
+            double rr = 0.0;
+            for (int i = 0; i < n; i++) {
+                double ri = b[i] - A.rowDot(i, x);
+                rr += ri * ri;
+                x[i] += ri / A.diagonal(i);
+            }
+            iter++;
+            history.add(Math.sqrt(rr));
+
+            if (history.last() <= tol || iter == maxIter) {
+                history.replaceLast(norm(residual(A, b, x)));
+            }
+        }
+
+        return history.result(x, iter, tol);
+    }
+
+    private static double[] start(int n, double[] x0) {
+        return x0 == null ? new double[n] : x0.clone();
+    }
+
+    //r = b - A*x
+    private static double[] residual(LinearOperator A, double[] b, double[] x) {
+        double[] r = new double[b.length];
+        A.apply(x, r);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = b[i] - r[i];
+        }
+        return r;
+    }
+
+    private static double dot(double[] x, double[] y) {
+        return Gauss.KERNELS.dot(x, y, 0, x.length);
+    }
+
+    private static double norm(double[] x) {
+        return Math.sqrt(dot(x, x));
+    }
+
+    //y += a*x
+    private static void axpy(double a, double[] x, double[] y) {
+        Gauss.KERNELS.subtractScaled(y, x, -a, 0, y.length);
+    }
+
+    /**
+     * Sammelt die relativen Residuen einer Iteration.
+     */
+    private static class History {
+
+        final double normB;
+        private double[] values = new double[16];
+        private int count = 0;
+
+        History(double normB) {
+            //b = 0: absolute statt relative Residuen
+            this.normB = normB == 0 ? 1.0 : normB;
+        }
+
+        void add(double residualNorm) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            values[count++] = residualNorm / normB;
+        }
+
+        void replaceLast(double residualNorm) {
+            values[count - 1] = residualNorm / normB;
+        }
+
+        double last() {
+            return values[count - 1];
+        }
+
+        Result result(double[] x, int iterations, double tol) {
+            return new Result(x, iterations, last() <= tol,
+                    Arrays.copyOf(values, count));
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Zerlegung P*A*P^T = L*D*L^T einer symmetrischen, auch indefiniten Matrix
+ * nach Bunch-Kaufman. D besteht aus 1x1- und 2x2-Bloecken, L ist eine untere
+ * Dreiecksmatrix mit Einsen auf der Diagonale. Wie bei Cholesky wird nur das
+ * untere Dreieck zeilenweise gepackt gespeichert: die Bloecke von D liegen auf
+ * (und bei 2x2-Bloecken direkt unter) der Diagonale, darunter die Faktoren von
+ * L.
+ */
+public class LDLT {
+
+    //Schwelle fuer 1x1- oder 2x2-Pivot, (1 + sqrt(17)) / 8
+    private static final double ALPHA = (1.0 + Math.sqrt(17.0)) / 8.0;
+
+    private final int n;
+    private final double[] a;
+    private final int[] perm;
+
+    //blockSize[k] = 1 oder 2 am Anfang eines Blocks von D, 0 fuer die zweite Zeile eines 2x2-Blocks
+    private final int[] blockSize;
+
+    private LDLT(int n, double[] a, int[] perm, int[] blockSize) {
+        this.n = n;
+        this.a = a;
+        this.perm = perm;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Zerlegt A. Verwendet wird nur das untere Dreieck von A, A wird nicht
+     * veraendert. Ist A singulaer, wird eine IllegalArgumentException
+     * geworfen.
+     */
+    public static LDLT factor(double[][] A) {
+        LDLT f = tryFactor(A);
+        if (f == null) {
+            throw new IllegalArgumentException("Matrix ist singulaer");
+        }
+        return f;
+    }
+
+    //wie factor, gibt aber null zurueck falls A singulaer ist
+    static LDLT tryFactor(double[][] A) {
+        int n = A.length;
+        LDLT f = new LDLT(n, Cholesky.packLower(A), new int[n], new int[n]);
+        for (int i = 0; i < n; i++) {
+            f.perm[i] = i;
+        }
+        return f.decompose() ? f : null;
+    }
+
+    private boolean decompose() {
+        double[] colK = new double[n];
+        double[] colK1 = new double[n];
+
+        int k = 0;
+        while (k < n) {
+            //groesster Eintrag unter der Diagonale in Spalte k
+            double absakk = Math.abs(get(k, k));
+            int imax = k;
+            double colmax = 0.0;
+            for (int i = k + 1; i < n; i++) {
+                double v = Math.abs(get(i, k));
+                if (v > colmax) {
+                    colmax = v;
+                    imax = i;
+                }
+            }
+
+            if (Math.max(absakk, colmax) == 0.0) {
+                return false;
+            }
+
+            int kstep = 1;
+            int kp = k;
+            if (absakk < ALPHA * colmax) {
+                //groesster Eintrag ausserhalb der Diagonale in Zeile/Spalte imax
+                double rowmax = 0.0;
+                for (int j = k; j < n; j++) {
+                    if (j != imax) {
+                        rowmax = Math.max(rowmax, Math.abs(get(imax, j)));
+                    }
+                }
+
+                if (absakk * rowmax >= ALPHA * colmax * colmax) {
+                    kp = k;
+                } else if (Math.abs(get(imax, imax)) >= ALPHA * rowmax) {
+                    kp = imax;
+                } else {
+                    kp = imax;
+                    kstep = 2;
+                }
+            }
+
+            //Zeile/Spalte kp an Position kk bringen
+            int kk = k + kstep - 1;
+            if (kp != kk) {
+                swapSymmetric(kk, kp);
+            }
+
+            if (kstep == 1) {
+                double d = get(k, k);
+                for (int i = k + 1; i < n; i++) {
+                    colK[i] = get(i, k);
+                }
+
+                //A22 -= c*c^T/d, danach Spalte k durch d teilen
+                for (int i = k + 1; i < n; i++) {
+                    double li = colK[i] / d;
+                    if (li != 0) {
+                        int ri = Cholesky.index(i, 0);
+                        for (int j = k + 1; j <= i; j++) {
+                            a[ri + j] -= li * colK[j];
+                        }
+                    }
+                    set(i, k, li);
+                }
+                blockSize[k] = 1;
+            } else {
+                double d11 = get(k, k);
+                double d21 = get(k + 1, k);
+                double d22 = get(k + 1, k + 1);
+                double det = d11 * d22 - d21 * d21;
+                if (det == 0.0) {
+                    return false;
+                }
+
+                for (int i = k + 2; i < n; i++) {
+                    colK[i] = get(i, k);
+                    colK1[i] = get(i, k + 1);
+                }
+
+                //[l_i0 l_i1] = [c_i0 c_i1] * D^-1, A22 -= L*[c_j0 c_j1]^T
+                for (int i = k + 2; i < n; i++) {
+                    double l0 = (colK[i] * d22 - colK1[i] * d21) / det;
+                    double l1 = (colK1[i] * d11 - colK[i] * d21) / det;
+                    int ri = Cholesky.index(i, 0);
+                    for (int j = k + 2; j <= i; j++) {
+                        a[ri + j] -= l0 * colK[j] + l1 * colK1[j];
+                    }
+                    set(i, k, l0);
+                    set(i, k + 1, l1);
+                }
+                blockSize[k] = 2;
+                blockSize[k + 1] = 0;
+            }
+
+            k += kstep;
+        }
+
+        return true;
+    }
+
+    /**
+     * Loest A*x=b. b wird nicht veraendert.
+     */
+    public double[] solve(double[] b) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = b[perm[i]];
+        }
+
+        //L*z = P*b
+        for (int k = 0; k < n; k += blockSize[k]) {
+            int first = k + blockSize[k];
+            for (int i = first; i < n; i++) {
+                y[i] -= get(i, k) * y[k];
+                if (blockSize[k] == 2) {
+                    y[i] -= get(i, k + 1) * y[k + 1];
+                }
+            }
+        }
+
+        //D*w = z
+        for (int k = 0; k < n; k += blockSize[k]) {
+            if (blockSize[k] == 1) {
+                y[k] /= get(k, k);
+            } else {
+                double d11 = get(k, k);
+                double d21 = get(k + 1, k);
+                double d22 = get(k + 1, k + 1);
+                double det = d11 * d22 - d21 * d21;
+                double y0 = y[k];
+                double y1 = y[k + 1];
+                y[k] = (d22 * y0 - d21 * y1) / det;
+                y[k + 1] = (d11 * y1 - d21 * y0) / det;
+            }
+        }
+
+        //L^T*v = w, Bloecke von hinten
+        int k = n - 1;
+        while (k >= 0) {
+            int start = blockSize[k] == 0 ? k - 1 : k;
+            int first = start + blockSize[start];
+            for (int c = start; c < first; c++) {
+                double acc = 0.0;
+                for (int i = first; i < n; i++) {
+                    acc += get(i, c) * y[i];
+                }
+                y[c] -= acc;
+            }
+            k = start - 1;
+        }
+
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[perm[i]] = y[i];
+        }
+        return x;
+    }
+
+    //vertauscht Zeilen und Spalten r und s (r < s) symmetrisch, inkl. bisheriger L-Faktoren
+    private void swapSymmetric(int r, int s) {
+        for (int j = 0; j < n; j++) {
+            if (j != r && j != s) {
+                double tmp = get(r, j);
+                set(r, j, get(s, j));
+                set(s, j, tmp);
+            }
+        }
+        double tmp = get(r, r);
+        set(r, r, get(s, s));
+        set(s, s, tmp);
+
+        int tmp2 = perm[r];
+        perm[r] = perm[s];
+        perm[s] = tmp2;
+    }
+
+    private double get(int i, int j) {
+        return i >= j ? a[Cholesky.index(i, j)] : a[Cholesky.index(j, i)];
+    }
+
+    private void set(int i, int j, double v) {
+        if (i >= j) {
+            a[Cholesky.index(i, j)] = v;
+        } else {
+            a[Cholesky.index(j, i)] = v;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Eine lineare Abbildung x -> A*x einer n x n Matrix A. Die iterativen
+ * Verfahren in IterativeSolver benoetigen A nur ueber diese Schnittstelle, so
+ * dass dichte, duenn besetzte oder gar nicht gespeicherte Matrizen verwendet
+ * werden koennen.
+ */
+public interface LinearOperator {
+
+    /**
+     * Dimension n der Matrix
+     */
+    int size();
+
+    /**
+     * Berechnet y = A*x. x und y haben die Laenge n und sind verschiedene
+     * Arrays, y wird vollstaendig ueberschrieben.
+     */
+    void apply(double[] x, double[] y);
+}
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/**
+ * Der Linkgraph einer Menge von Webseiten als Adjazenzlisten (CSR): die
+ * Seiten, auf die Seite v verlinkt, stehen aufsteigend sortiert in
+ * targets[offsets[v] .. offsets[v+1]-1]. Der Speicherbedarf ist O(n + Links)
+ * statt O(n^2) wie bei der Linkmatrix.
+ *
+ * Der Graph ist unveraenderlich. Fuer die PageRank-Iteration werden meist die
+ * eingehenden Links benoetigt, dafuer liefert reverse() den umgedrehten Graphen.
+ */
+public class LinkGraph {
+
+    final int n;
+    final int[] offsets;
+    final int[] targets;
+
+    //umgedrehter Graph, wird bei Bedarf einmal berechnet
+    private LinkGraph reverse;
+
+    /**
+     * Erstellt den Graphen direkt aus CSR-Arrays. Die Listen muessen sortiert
+     * und ohne Duplikate sein, die Arrays werden nicht kopiert.
+     */
+    public LinkGraph(int n, int[] offsets, int[] targets) {
+        this.n = n;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Erstellt den Graphen aus einer Linkmatrix: L[i][j] = 1 bedeutet, dass
+     * Seite j auf Seite i verlinkt (s. Aufgabenblatt).
+     */
+    public static LinkGraph fromLinkMatrix(int[][] L) {
+        int n = L.length;
+
+        //Spalte j von L sind die ausgehenden Links von j, erst zaehlen
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (L[i][j] != 0) {
+                    offsets[j + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            offsets[j + 1] += offsets[j];
+        }
+
+        //zeilenweise durchlaufen, dadurch ist jede Liste nach i sortiert
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (L[i][j] != 0) {
+                    targets[next[j]++] = i;
+                }
+            }
+        }
+
+        return new LinkGraph(n, offsets, targets);
+    }
+
+    /**
+     * Erstellt den Graphen aus den ersten count Kanten from[k] -> to[k].
+     * Doppelte Kanten werden nur einmal uebernommen.
+     */
+    public static LinkGraph fromEdges(int n, int[] from, int[] to, int count) {
+        //Counting-Sort nach Ziel, dann stabil nach Quelle: Listen sind sortiert
+        int[] byTarget = new int[count];
+        int[] start = new int[n + 1];
+        for (int k = 0; k < count; k++) {
+            start[to[k] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            start[v + 1] += start[v];
+        }
+        for (int k = 0; k < count; k++) {
+            byTarget[start[to[k]]++] = k;
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < count; k++) {
+            offsets[from[k] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[count];
+        for (int t = 0; t < count; t++) {
+            int k = byTarget[t];
+            targets[next[from[k]]++] = to[k];
+        }
+
+        //Duplikate entfernen
+        int m = 0;
+        int listStart = 0;
+        for (int v = 0; v < n; v++) {
+            int listEnd = offsets[v + 1];
+            int first = m;
+            for (int k = listStart; k < listEnd; k++) {
+                if (m == first || targets[m - 1] != targets[k]) {
+                    targets[m++] = targets[k];
+                }
+            }
+            listStart = listEnd;
+            offsets[v + 1] = m;
+        }
+
+        return new LinkGraph(n, offsets, m == count ? targets : Arrays.copyOf(targets, m));
+    }
+
+    /**
+     * Anzahl der Seiten
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Anzahl der Links
+     */
+    public int edgeCount() {
+        return offsets[n];
+    }
+
+    public int outDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Die Seiten, auf die v verlinkt (Kopie)
+     */
+    public int[] successors(int v) {
+        return Arrays.copyOfRange(targets, offsets[v], offsets[v + 1]);
+    }
+
+    public boolean hasEdge(int from, int to) {
+        return Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * Der Graph mit umgedrehten Kanten, d.h. die Listen enthalten die Seiten,
+     * die auf v verlinken.
+     */
+    public synchronized LinkGraph reverse() {
+        if (reverse == null) {
+            int m = edgeCount();
+            int[] rOffsets = new int[n + 1];
+            for (int k = 0; k < m; k++) {
+                rOffsets[targets[k] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                rOffsets[v + 1] += rOffsets[v];
+            }
+
+            int[] next = Arrays.copyOf(rOffsets, n);
+            int[] rTargets = new int[m];
+            for (int v = 0; v < n; v++) {
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                    rTargets[next[targets[k]]++] = v;
+                }
+            }
+
+            reverse = new LinkGraph(n, rOffsets, rTargets);
+            reverse.reverse = this;
+        }
+        return reverse;
+    }
+
+    /**
+     * Der Graph nach Anwendung der Aenderungen d. Neue Seiten werden hinten
+     * angehaengt, bestehende Seiten behalten ihre Nummer. Links von oder zu
+     * entfernten Seiten werden verworfen, auch wenn sie in d hinzugefuegt
+     * werden.
+     */
+    public LinkGraph apply(GraphDelta d) {
+        int newN = n + d.addedPages;
+
+        boolean[] removed = new boolean[newN];
+        for (int k = 0; k < d.removedPageCount; k++) {
+            removed[d.removedPages[k]] = true;
+        }
+
+        //entfernte Links als sortierte Schluessel from*2^32+to fuer die Binaersuche
+        long[] removedLinks = new long[d.removeCount];
+        for (int k = 0; k < d.removeCount; k++) {
+            removedLinks[k] = ((long) d.removeFrom[k] << 32) | d.removeTo[k];
+        }
+        Arrays.sort(removedLinks);
+
+        int capacity = edgeCount() + d.addCount;
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (removed[v]) {
+                continue;
+            }
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int w = targets[k];
+                if (!removed[w] && (removedLinks.length == 0
+                        || Arrays.binarySearch(removedLinks, ((long) v << 32) | w) < 0)) {
+                    from[count] = v;
+                    to[count] = w;
+                    count++;
+                }
+            }
+        }
+        for (int k = 0; k < d.addCount; k++) {
+            if (!removed[d.addFrom[k]] && !removed[d.addTo[k]]) {
+                from[count] = d.addFrom[k];
+                to[count] = d.addTo[k];
+                count++;
+            }
+        }
+
+        return fromEdges(newN, from, to, count);
+    }
+
+    /**
+     * Die Linkmatrix des Graphen (L[i][j] = 1 falls j auf i verlinkt)
+     */
+    public int[][] toLinkMatrix() {
+        int[][] L = new int[n][n];
+        for (int j = 0; j < n; j++) {
+            for (int k = offsets[j]; k < offsets[j + 1]; k++) {
+                L[targets[k]][j] = 1;
+            }
+        }
+        return L;
+    }
+}
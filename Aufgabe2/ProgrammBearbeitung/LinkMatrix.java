@@ -9,6 +9,8 @@ import java.io.IOException;
 public class LinkMatrix {
 	public int[][] L;
 	public String[] urls;
+	/* Links als Adjazenzlisten, nur von readSparse und readEdges gesetzt */
+	public LinkGraph graph;
 
 	// private static final String lineDelim = ";";
 	private static final String delim = " ";
@@ -38,20 +40,58 @@ public class LinkMatrix {
 		}
 	}
 
+	/**
+	 * Liest eine Datei im selben Format wie read, legt aber statt der
+	 * Matrix L nur den Linkgraphen graph an. Die Datei wird parallel und
+	 * ohne Strings pro Eintrag gelesen (s. LinkMatrixReader).
+	 */
+	public void readSparse(String filename) throws IOException {
+		LinkMatrix lm = LinkMatrixReader.read(filename,
+				Runtime.getRuntime().availableProcessors());
+		L = null;
+		graph = lm.graph;
+		urls = lm.urls;
+	}
+
+	/**
+	 * Schreibt die Matrix im Format von read. Ist nur graph gesetzt (nach
+	 * readSparse oder readEdges), werden die Zeilen aus graph erzeugt.
+	 */
 	public void write(String filename) throws FileNotFoundException,
 			IOException {
-		String temp;
-
-		BufferedWriter file = new BufferedWriter(new FileWriter(filename));
+		BufferedWriter file = new BufferedWriter(new FileWriter(filename), 1 << 16);
 
 		try {
-			file.write(String.valueOf(L.length) + "\r\n");
+			if (L != null) {
+				file.write(String.valueOf(L.length) + "\r\n");
+
+				StringBuilder row = new StringBuilder(2 * L.length + 2);
+				for (int i = 0; i < L.length; i++) {
+					row.setLength(0);
+					for (int j = 0; j < L.length; j++)
+						row.append(L[i][j]).append(delim);
+					row.append("\r\n");
+					file.append(row);
+				}
+			} else {
+				int n = graph.size();
+				file.write(String.valueOf(n) + "\r\n");
 
-			for (int i = 0; i < L.length; i++) {
-				temp = "";
-				for (int j = 0; j < L.length; j++)
-					temp += String.valueOf(L[i][j]) + delim;
-				file.write(temp + "\r\n");
+				//Zeile i: die Seiten, die auf i verlinken
+				LinkGraph in = graph.reverse();
+				char row[] = new char[2 * n];
+				for (int j = 0; j < n; j++) {
+					row[2 * j] = '0';
+					row[2 * j + 1] = delim.charAt(0);
+				}
+				for (int i = 0; i < n; i++) {
+					for (int k = in.offsets[i]; k < in.offsets[i + 1]; k++)
+						row[2 * in.targets[k]] = '1';
+					file.write(row);
+					file.write("\r\n");
+					for (int k = in.offsets[i]; k < in.offsets[i + 1]; k++)
+						row[2 * in.targets[k]] = '0';
+				}
 			}
 
 			for (int i = 0; i < urls.length; i++)
@@ -64,4 +104,84 @@ public class LinkMatrix {
 			file.close();
 		}
 	}
+
+	/**
+	 * Schreibt die Links als Kantenliste: erste Zeile "n m" (Seiten und
+	 * Links), dann m Zeilen "j i" fuer einen Link von Seite j auf Seite i,
+	 * dann die n URLs. Groesse und Laufzeit sind proportional zur Zahl der
+	 * Links, wenn graph gesetzt ist; sonst wird L einmal durchlaufen.
+	 */
+	public void writeEdges(String filename) throws IOException {
+		LinkGraph g = graph != null ? graph : LinkGraph.fromLinkMatrix(L);
+		int n = g.size();
+
+		BufferedWriter file = new BufferedWriter(new FileWriter(filename), 1 << 16);
+
+		try {
+			file.write(n + delim + g.edgeCount() + "\r\n");
+
+			for (int j = 0; j < n; j++) {
+				for (int k = g.offsets[j]; k < g.offsets[j + 1]; k++) {
+					file.write(Integer.toString(j));
+					file.write(delim);
+					file.write(Integer.toString(g.targets[k]));
+					file.write("\r\n");
+				}
+			}
+
+			for (int i = 0; i < n; i++)
+				file.write(urls[i] + "\r\n");
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Liest eine mit writeEdges geschriebene Datei. Gesetzt werden graph
+	 * und urls, L bleibt null (bei Bedarf graph.toLinkMatrix()).
+	 */
+	public void readEdges(String filename) throws IOException {
+		BufferedReader file = new BufferedReader(new FileReader(filename), 1 << 16);
+
+		try {
+			String header = file.readLine();
+			if (header == null)
+				throw new IOException("Leere Datei");
+			int split = header.indexOf(delim);
+			if (split < 0)
+				throw new IOException("Erste Zeile muss \"n m\" enthalten");
+			int n = Integer.parseInt(header.substring(0, split).trim());
+			int m = Integer.parseInt(header.substring(split + 1).trim());
+
+			int from[] = new int[m];
+			int to[] = new int[m];
+			for (int k = 0; k < m; k++) {
+				String line = file.readLine();
+				if (line == null)
+					throw new IOException("Datei enthaelt nur " + k + " von " + m + " Links");
+				split = line.indexOf(delim);
+				if (split < 0)
+					throw new IOException("Ungueltiger Link in Zeile " + (k + 2));
+				from[k] = Integer.parseInt(line.substring(0, split).trim());
+				to[k] = Integer.parseInt(line.substring(split + 1).trim());
+				if (from[k] < 0 || from[k] >= n || to[k] < 0 || to[k] >= n)
+					throw new IOException("Link in Zeile " + (k + 2) + " zeigt auf keine Seite");
+			}
+
+			String u[] = new String[n];
+			for (int i = 0; i < n; i++) {
+				u[i] = file.readLine();
+				if (u[i] == null)
+					throw new IOException("Datei enthaelt nicht alle " + n + " URLs");
+			}
+
+			L = null;
+			graph = LinkGraph.fromEdges(n, from, to, m);
+			urls = u;
+		} catch (NumberFormatException e) {
+			throw new IOException("Ungueltige Zahl in " + filename, e);
+		} finally {
+			file.close();
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Liest Dateien im Textformat von LinkMatrix (Zeile 1: n, dann n Zeilen der
+ * Matrix mit durch Leerzeichen getrennten Eintraegen, dann n URLs) direkt in
+ * einen LinkGraph, ohne die n x n Matrix anzulegen.
+ *
+ * Die Datei wird in Stuecke geteilt, die parallel als Bytes gelesen werden
+ * (memory-mapped). Im ersten Durchlauf zaehlt jedes Stueck seine
+ * Zeilenenden, daraus ergibt sich die Nummer seiner ersten Zeile. Im zweiten
+ * Durchlauf zerlegt jedes Stueck seine Zeilen: Zeile i der Matrix liefert die
+ * Seiten, die auf i verlinken. Es werden keine Strings pro Eintrag erzeugt.
+ */
+class LinkMatrixReader {
+
+    //Groesse eines Stuecks und maximale Laenge einer Zeile ueber das Stueck hinaus
+    static final long CHUNK = 1L << 28;
+    static final long MAX_LINE = 1L << 30;
+
+    //Bytes, die auf einmal aus der Datei ins Array kopiert werden
+    static final int WINDOW = 1 << 16;
+
+    //Art einer Zeile
+    private static final int SKIP = 0, ROW = 1, URL = 2;
+
+    private final RandomAccessFile file;
+    private final long length;
+    private final int n;
+    private final Charset charset = Charset.defaultCharset();
+
+    private final String[] urls;
+
+    private LinkMatrixReader(RandomAccessFile file) throws IOException {
+        this.file = file;
+        this.length = file.length();
+        this.n = readHeader();
+        this.urls = new String[n];
+    }
+
+    /**
+     * Liest filename mit threads Threads. Im Ergebnis sind graph und urls
+     * gesetzt, L bleibt null.
+     */
+    static LinkMatrix read(String filename, int threads) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            LinkMatrixReader reader = new LinkMatrixReader(file);
+            LinkMatrix lm = new LinkMatrix();
+            lm.graph = reader.parse(Math.max(1, threads));
+            lm.urls = reader.urls;
+            for (int i = 0; i < reader.n; i++) {
+                if (lm.urls[i] == null) {
+                    throw new IOException("Datei enthaelt nicht alle " + reader.n + " URLs");
+                }
+            }
+            return lm;
+        }
+    }
+
+    //erste Zeile: n
+    private int readHeader() throws IOException {
+        MappedByteBuffer b = map(0, Math.min(length, 64));
+        long value = 0;
+        int digits = 0;
+        for (int i = 0; i < b.limit(); i++) {
+            byte c = b.get(i);
+            if (c >= '0' && c <= '9') {
+                value = 10 * value + (c - '0');
+                digits++;
+            } else if (c == '\n' || digits > 0 && c != ' ' && c != '\r') {
+                break;
+            }
+        }
+        if (digits == 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Erste Zeile enthaelt keine gueltige Seitenzahl");
+        }
+        return (int) value;
+    }
+
+    private LinkGraph parse(int threads) throws IOException {
+        int chunks = (int) Math.max(threads, (length + CHUNK - 1) / CHUNK);
+        chunks = (int) Math.max(1, Math.min(chunks, length));
+        long[] start = new long[chunks + 1];
+        for (int c = 0; c <= chunks; c++) {
+            start[c] = length * c / chunks;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks));
+        try {
+            //1. Durchlauf: Zeilenenden pro Stueck, daraus die Nummer der ersten Zeile
+            List<Callable<Long>> counts = new ArrayList<Callable<Long>>();
+            for (int c = 0; c < chunks; c++) {
+                final long from = start[c];
+                final long to = start[c + 1];
+                counts.add(() -> countLines(from, to));
+            }
+            long[] firstLine = new long[chunks];
+            List<Future<Long>> counted = pool.invokeAll(counts);
+            for (int c = 1; c < chunks; c++) {
+                firstLine[c] = firstLine[c - 1] + counted.get(c - 1).get();
+            }
+
+            //2. Durchlauf: Zeilen zerlegen
+            List<Callable<Rows>> parsers = new ArrayList<Callable<Rows>>();
+            for (int c = 0; c < chunks; c++) {
+                final long from = start[c];
+                final long to = start[c + 1];
+                final long line = firstLine[c];
+                parsers.add(() -> parseChunk(from, to, line));
+            }
+            List<Future<Rows>> parsed = pool.invokeAll(parsers);
+
+            //Zeilen der Stuecke hintereinander: Zeile i = eingehende Links von i
+            int[] offsets = new int[n + 1];
+            List<Rows> rows = new ArrayList<Rows>();
+            long total = 0;
+            for (Future<Rows> f : parsed) {
+                Rows r = f.get();
+                rows.add(r);
+                for (int i = r.firstRow; i < r.firstRow + r.rowCount; i++) {
+                    offsets[i + 1] = r.rowLength[i - r.firstRow];
+                }
+                total += r.count;
+            }
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IOException("Zu viele Links: " + total);
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] sources = new int[(int) total];
+            for (Rows r : rows) {
+                if (r.rowCount > 0) {
+                    System.arraycopy(r.sources, 0, sources, offsets[r.firstRow], r.count);
+                }
+            }
+
+            return new LinkGraph(n, offsets, sources).reverse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Einlesen unterbrochen", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Einlesen fehlgeschlagen", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long countLines(long from, long to) throws IOException {
+        MappedByteBuffer b = map(from, to - from);
+        byte[] window = new byte[WINDOW];
+        int size = (int) (to - from);
+        long count = 0;
+        for (int base = 0; base < size; base += WINDOW) {
+            int len = Math.min(WINDOW, size - base);
+            b.get(base, window, 0, len);
+            for (int k = 0; k < len; k++) {
+                if (window[k] == '\n') {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Zeilen, die in from .. to-1 beginnen. line ist die Zahl der
+     * Zeilenenden vor from. Die Bytes werden fensterweise in ein Array kopiert
+     * und in einem Durchlauf zerlegt; die letzte Zeile darf ueber to
+     * hinausgehen.
+     */
+    private Rows parseChunk(long from, long to, long line) throws IOException {
+        long mapEnd = Math.min(length, to + MAX_LINE);
+        MappedByteBuffer b = map(from, mapEnd - from);
+        int limit = (int) (mapEnd - from);
+        int end = (int) (to - from);
+        byte[] window = new byte[WINDOW];
+
+        //beginnt das Stueck mitten in einer Zeile, gehoert diese zum vorigen Stueck
+        boolean skip = from > 0 && map(from - 1, 1).get(0) != '\n';
+        int mode = skip ? SKIP : modeOf(line);
+
+        Rows rows = new Rows();
+        byte[] url = new byte[256];
+        int urlLength = 0;
+        int column = 0;
+        boolean inToken = false;
+        boolean nonZero = false;
+        boolean lineOpen = !skip;
+        if (mode == ROW) {
+            rows.startRow((int) (line - 1));
+        }
+
+        int base = 0;
+        boolean done = !skip && end == 0;
+        while (!done && base < limit) {
+            int len = Math.min(WINDOW, limit - base);
+            b.get(base, window, 0, len);
+            for (int k = 0; k < len; k++) {
+                byte c = window[k];
+                if (c == '\n') {
+                    if (mode == ROW) {
+                        if (inToken) {
+                            column = endToken(rows, column, nonZero, line);
+                            inToken = false;
+                        }
+                        checkRow(column, line);
+                    } else if (mode == URL) {
+                        urls[(int) (line - n - 1)] = decodeUrl(url, urlLength);
+                    }
+                    line++;
+                    lineOpen = false;
+                    if (base + k + 1 >= end) {
+                        done = true;
+                        break;
+                    }
+
+                    mode = modeOf(line);
+                    lineOpen = true;
+                    column = 0;
+                    urlLength = 0;
+                    if (mode == ROW) {
+                        rows.startRow((int) (line - 1));
+                    }
+                } else if (mode == ROW) {
+                    if (c == ' ' || c == '\t' || c == '\r') {
+                        if (inToken) {
+                            column = endToken(rows, column, nonZero, line);
+                            inToken = false;
+                        }
+                    } else if (c >= '0' && c <= '9') {
+                        if (!inToken) {
+                            inToken = true;
+                            nonZero = false;
+                        }
+                        nonZero |= c != '0';
+                    } else if (c == '-' && !inToken) {
+                        inToken = true;
+                        nonZero = false;
+                    } else {
+                        throw new IOException("Ungueltiger Eintrag in Zeile " + (line + 1));
+                    }
+                } else if (mode == URL) {
+                    if (urlLength == url.length) {
+                        url = Arrays.copyOf(url, 2 * urlLength);
+                    }
+                    url[urlLength++] = c;
+                }
+            }
+            base += len;
+        }
+
+        if (!done && lineOpen) {
+            if (mapEnd < length) {
+                throw new IOException("Zeile " + (line + 1) + " ist zu lang");
+            }
+            //letzte Zeile ohne Zeilenende
+            if (mode == ROW) {
+                if (inToken) {
+                    column = endToken(rows, column, nonZero, line);
+                }
+                checkRow(column, line);
+            } else if (mode == URL) {
+                urls[(int) (line - n - 1)] = decodeUrl(url, urlLength);
+            }
+        }
+        return rows;
+    }
+
+    //Art der Zeile mit Nummer line: Matrixzeile, URL oder nichts (Kopfzeile und Rest)
+    private int modeOf(long line) {
+        if (line >= 1 && line <= n) {
+            return ROW;
+        }
+        return line > n && line <= 2L * n ? URL : SKIP;
+    }
+
+    private int endToken(Rows rows, int column, boolean nonZero, long line) throws IOException {
+        if (column >= n) {
+            throw new IOException("Zeile " + (line + 1) + " hat mehr als " + n + " Eintraege");
+        }
+        if (nonZero) {
+            rows.add(column);
+        }
+        return column + 1;
+    }
+
+    private void checkRow(int column, long line) throws IOException {
+        if (column != n) {
+            throw new IOException("Zeile " + (line + 1) + " hat " + column + " statt " + n
+                    + " Eintraege");
+        }
+    }
+
+    private String decodeUrl(byte[] url, int length) {
+        if (length > 0 && url[length - 1] == '\r') {
+            length--;
+        }
+        return new String(url, 0, length, charset);
+    }
+
+    private MappedByteBuffer map(long pos, long size) throws IOException {
+        return file.getChannel().map(FileChannel.MapMode.READ_ONLY, pos, size);
+    }
+
+    //die in einem Stueck gelesenen Matrixzeilen (aufeinanderfolgend ab firstRow)
+    private static class Rows {
+
+        int firstRow = -1;
+        int rowCount = 0;
+        int[] rowLength = new int[16];
+        int[] sources = new int[1024];
+        int count = 0;
+
+        void startRow(int row) {
+            if (firstRow < 0) {
+                firstRow = row;
+            }
+            if (rowCount == rowLength.length) {
+                rowLength = Arrays.copyOf(rowLength, 2 * rowCount);
+            }
+            rowLength[rowCount++] = 0;
+        }
+
+        void add(int column) {
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, 2 * count);
+            }
+            sources[count++] = column;
+            rowLength[rowCount - 1]++;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Personalisierter PageRank per Zufallsspaziergaengen. Der personalisierte
+ * Rang zur Startseite s ist die Loesung von
+ *
+ * p = (1-rho) * (A*p + d/n) + rho * e_s
+ *
+ * (wie bei SparsePageRank, nur springt der Zufallssurfer mit
+ * Wahrscheinlichkeit rho zurueck nach s statt auf eine beliebige Seite).
+ * Man erhaelt ihn als rho * erwartete Zahl der Besuche eines Spaziergangs,
+ * der in s beginnt und nach jedem Schritt mit Wahrscheinlichkeit rho endet;
+ * von Seiten ohne Links geht es auf eine zufaellige Seite weiter.
+ *
+ * Beim Aufbau werden fuer jede Seite walks solche Spaziergaenge gezogen und
+ * hintereinander in einem int-Array gespeichert. Eine Anfrage fuer eine
+ * Menge von Startseiten zaehlt dann nur die Besuche in deren Spaziergaengen,
+ * der Aufwand haengt also nicht von der Groesse des Graphen ab, sondern nur
+ * von |Startseiten| * walks / rho. Der Fehler faellt etwa mit
+ * 1/sqrt(walks * |Startseiten|).
+ */
+public class MonteCarloPageRank {
+
+    private final int n;
+    private final double rho;
+    private final int walks;
+
+    //Spaziergang r von Seite v: nodes[offsets[v*walks + r] .. offsets[v*walks + r + 1]-1], ohne die Startseite v
+    private final long[] offsets;
+    private final int[] nodes;
+
+    private MonteCarloPageRank(int n, double rho, int walks, long[] offsets, int[] nodes) {
+        this.n = n;
+        this.rho = rho;
+        this.walks = walks;
+        this.offsets = offsets;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Ergebnis einer Anfrage: die Seiten absteigend nach geschaetztem
+     * personalisiertem Rang und die Schaetzwerte.
+     */
+    public static class Result {
+
+        public final int[] pages;
+        public final double[] scores;
+
+        Result(int[] pages, double[] scores) {
+            this.pages = pages;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * Zieht walks Spaziergaenge pro Seite von g. Mehr Spaziergaenge machen
+     * die Schaetzung genauer, Speicher und Aufbauzeit wachsen etwa mit
+     * n * walks / rho. Bei gleichem seed ist das Ergebnis reproduzierbar.
+     */
+    public static MonteCarloPageRank build(LinkGraph g, double rho, int walks, long seed) {
+        if (!(rho > 0 && rho <= 1)) {
+            throw new IllegalArgumentException("rho muss in (0, 1] liegen");
+        }
+        if (walks < 1) {
+            throw new IllegalArgumentException("Mindestens ein Spaziergang pro Seite");
+        }
+
+        int n = g.size();
+        if ((long) n * walks >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Zu viele Spaziergaenge");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] offsets = new long[n * walks + 1];
+        int[] nodes = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.ceil(n * walks / rho) + 16)];
+        int count = 0;
+
+        for (int v = 0; v < n; v++) {
+            for (int r = 0; r < walks; r++) {
+                int u = v;
+                while (random.nextDouble() >= rho) {
+                    int deg = g.offsets[u + 1] - g.offsets[u];
+                    u = deg == 0 ? random.nextInt(n) : g.targets[g.offsets[u] + random.nextInt(deg)];
+                    if (count == nodes.length) {
+                        if (count >= Integer.MAX_VALUE - 8) {
+                            throw new IllegalArgumentException("Zu viele Spaziergaenge");
+                        }
+                        nodes = Arrays.copyOf(nodes, (int) Math.min(Integer.MAX_VALUE - 8, 2L * count));
+                    }
+                    nodes[count++] = u;
+                }
+                offsets[v * walks + r + 1] = count;
+            }
+        }
+
+        return new MonteCarloPageRank(n, rho, walks, offsets,
+                count == nodes.length ? nodes : Arrays.copyOf(nodes, count));
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public double getRho() {
+        return rho;
+    }
+
+    public int getWalks() {
+        return walks;
+    }
+
+    /**
+     * Die k Seiten mit dem hoechsten personalisierten Rang bezueglich der
+     * Startseiten seeds, die alle gleich gewichtet werden.
+     */
+    public Result topK(int[] seeds, int k) {
+        double[] weights = new double[seeds.length];
+        Arrays.fill(weights, 1.0 / seeds.length);
+        return topK(seeds, weights, k);
+    }
+
+    /**
+     * Die k Seiten mit dem hoechsten personalisierten Rang, wenn der Surfer
+     * mit Wahrscheinlichkeit weights[i] / Summe(weights) zu seeds[i]
+     * zurueckspringt.
+     */
+    public Result topK(int[] seeds, double[] weights, int k) {
+        ScoreMap scores = accumulate(seeds, weights);
+        k = Math.min(k, scores.count);
+
+        //Min-Heap der besten k Eintraege, die Wurzel ist der schlechteste
+        int[] heapPages = new int[k];
+        double[] heapScores = new double[k];
+        int size = 0;
+        if (k > 0) {
+            for (int slot = 0; slot < scores.keys.length; slot++) {
+                int page = scores.keys[slot];
+                if (page < 0) {
+                    continue;
+                }
+                double s = scores.values[slot];
+                if (size < k) {
+                    heapPages[size] = page;
+                    heapScores[size] = s;
+                    siftUp(heapPages, heapScores, size++);
+                } else if (s > heapScores[0]) {
+                    heapPages[0] = page;
+                    heapScores[0] = s;
+                    siftDown(heapPages, heapScores, 0, size);
+                }
+            }
+        }
+
+        //Wurzel nach hinten tauschen ergibt absteigende Reihenfolge
+        for (int end = size - 1; end > 0; end--) {
+            swap(heapPages, heapScores, 0, end);
+            siftDown(heapPages, heapScores, 0, end);
+        }
+        return new Result(heapPages, heapScores);
+    }
+
+    /**
+     * Der geschaetzte personalisierte Rangvektor (Laenge n, Summe im Mittel
+     * 1) zu den gewichteten Startseiten.
+     */
+    public double[] estimate(int[] seeds, double[] weights) {
+        ScoreMap scores = accumulate(seeds, weights);
+        double[] p = new double[n];
+        for (int slot = 0; slot < scores.keys.length; slot++) {
+            if (scores.keys[slot] >= 0) {
+                p[scores.keys[slot]] = scores.values[slot];
+            }
+        }
+        return p;
+    }
+
+    //zaehlt die gewichteten Besuche in den Spaziergaengen der Startseiten
+    private ScoreMap accumulate(int[] seeds, double[] weights) {
+        if (seeds.length != weights.length) {
+            throw new IllegalArgumentException("seeds und weights muessen gleich lang sein");
+        }
+        double total = 0.0;
+        long visits = 0;
+        for (int i = 0; i < seeds.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Gewichte duerfen nicht negativ sein");
+            }
+            total += weights[i];
+            visits += offsets[(seeds[i] + 1) * walks] - offsets[seeds[i] * walks] + walks;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("Mindestens ein positives Gewicht");
+        }
+
+        //jeder Besuch zaehlt rho / walks, der Spaziergang endet im Mittel nach 1/rho Seiten
+        ScoreMap scores = new ScoreMap((int) Math.min(visits, n));
+        for (int i = 0; i < seeds.length; i++) {
+            int s = seeds[i];
+            double w = weights[i] / total;
+            if (w == 0) {
+                continue;
+            }
+            double perVisit = w * rho / walks;
+            scores.add(s, perVisit * walks);
+            int end = (int) offsets[(s + 1) * walks];
+            for (int k = (int) offsets[s * walks]; k < end; k++) {
+                scores.add(nodes[k], perVisit);
+            }
+        }
+        return scores;
+    }
+
+    private static void siftUp(int[] pages, double[] scores, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (scores[parent] <= scores[i]) {
+                break;
+            }
+            swap(pages, scores, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] pages, double[] scores, int i, int size) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && scores[child + 1] < scores[child]) {
+                child++;
+            }
+            if (scores[i] <= scores[child]) {
+                break;
+            }
+            swap(pages, scores, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] pages, double[] scores, int i, int j) {
+        int tp = pages[i];
+        pages[i] = pages[j];
+        pages[j] = tp;
+        double ts = scores[i];
+        scores[i] = scores[j];
+        scores[j] = ts;
+    }
+
+    /**
+     * Hashtabelle Seite -> Wert mit offener Adressierung, damit eine Anfrage
+     * nicht O(n) Speicher anlegen muss. Freie Plaetze haben den Schluessel -1.
+     */
+    private static class ScoreMap {
+
+        final int[] keys;
+        final double[] values;
+        int count = 0;
+
+        //Platz = oberste log2(capacity) Bits von key * 0x9E3779B9 (Fibonacci-Hashing)
+        private final int shift;
+
+        ScoreMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, 2 * expected - 1)) << 1;
+            keys = new int[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, -1);
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        void add(int key, double value) {
+            int mask = keys.length - 1;
+            int slot = (key * 0x9E3779B9) >>> shift;
+            while (keys[slot] != key) {
+                if (keys[slot] < 0) {
+                    keys[slot] = key;
+                    count++;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values[slot] += value;
+        }
+    }
+}
@@ -1,7 +1,4 @@
 
-import java.util.Arrays;
-import java.util.Comparator;
-
 public class PageRank {
 
     /**
@@ -24,12 +21,15 @@ public class PageRank {
                 }
             }
 
-            //Spalte j in A füllen
+            //Spalte j in A füllen, der Zufallssprung rho/n gilt fuer jede Seite,
+            //eine Seite ohne Links verteilt ihren Rang gleichmaessig
             for (int i = 0; i < n; i++) {
-                if (L[i][j] == 1) {
+                if (linkCount == 0) {
+                    A[i][j] = 1.0 / (double) n;
+                } else if (L[i][j] == 1) {
                     A[i][j] = (1.0 / (double) linkCount) * (1.0 - rho) + (rho / (double) n);
                 } else {
-                    A[i][j] = 0;
+                    A[i][j] = rho / (double) n;
                 }
             }
 
@@ -40,16 +40,27 @@ public class PageRank {
     /**
      * Diese Methode berechnet die PageRanks der einzelnen Seiten, also das
      * Gleichgewicht der Aufenthaltswahrscheinlichkeiten. (Entspricht dem
-     * p-Strich aus der Angabe) Die Ausgabe muss dazu noch normiert sein.
+     * p-Strich aus der Angabe) Die Ausgabe ist normiert.
      * PARAMETER: L: die Linkmatrix (s. Aufgabenblatt) rho: Wahrscheinlichkeit,
      * zufaellig irgendeine Seite zu besuchen ,anstatt einem Link zu folgen.
      *
+     * Gerechnet wird wie bei rankSparse auf den Linklisten, bei grossen
+     * Graphen mit mehreren Threads (s. SparsePageRank.rankParallel). Die
+     * Loesung mit der dichten Matrix A~ liefert rankDense.
      */
     public static double[] rank(int[][] L, double rho) {
+        return rankSparse(L, rho);
+    }
+
+    /**
+     * Berechnet die PageRanks wie rank, aber durch Loesen von (A~ - I)*p = 0
+     * mit Gauss.solveSing. Speicher O(n^2), Aufwand O(n^3).
+     */
+    public static double[] rankDense(int[][] L, double rho) {
         double A[][] = buildProbabilityMatrix(L, rho);
         
         //(A~ - I), Subtraktion der Einheitsmatrix
-        for (int i = 0; i < A.length;){
+        for (int i = 0; i < A.length; i++){
             A[i][i] -= 1;
         }
         
@@ -68,49 +79,45 @@ public class PageRank {
     }
 
     /**
-     * Diese Methode erstellt eine Rangliste der uebergebenen URLs nach
-     * absteigendem PageRank. PARAMETER: urls: Die URLs der betrachteten Seiten
-     * L: die Linkmatrix (s. Aufgabenblatt) rho: Wahrscheinlichkeit, anstatt
-     * einem Link zu folgen, zufaellig irgendeine Seite zu besuchen
+     * Berechnet dieselben PageRanks wie rankDense, aber per Potenzmethode auf
+     * den Linklisten (s. SparsePageRank) statt mit der dichten Matrix A~ und
+     * Gauss.solveSing. Seiten ohne ausgehende Links verteilen ihren Rang
+     * gleichmaessig auf alle Seiten.
      */
-    public static String[] getSortedURLs(String[] urls, int[][] L, double rho) {
-        int n = L.length;
-
-        double[] p = rank(L, rho);
-
-        RankPair[] sortedPairs = new RankPair[n];
-        for (int i = 0; i < n; i++) {
-            sortedPairs[i] = new RankPair(urls[i], p[i]);
-        }
-
-        Arrays.sort(sortedPairs, new Comparator<RankPair>() {
-
-            @Override
-            public int compare(RankPair o1, RankPair o2) {
-                return -Double.compare(o1.pr, o2.pr);
-            }
-        });
+    public static double[] rankSparse(int[][] L, double rho) {
+        return SparsePageRank.rank(LinkGraph.fromLinkMatrix(L), rho);
+    }
 
-        String[] sortedUrls = new String[n];
-        for (int i = 0; i < n; i++) {
-            sortedUrls[i] = sortedPairs[i].url;
+    /**
+     * Berechnet die PageRanks fuer mehrere Werte von rho in einem Durchlauf
+     * (s. SparsePageRank.rankSweep). Zeile r des Ergebnisses gehoert zu
+     * rhos[r].
+     */
+    public static double[][] rank(int[][] L, double[] rhos) {
+        SparsePageRank.Result[] results = SparsePageRank.rankSweep(LinkGraph.fromLinkMatrix(L),
+                rhos, SparsePageRank.DEFAULT_TOLERANCE, SparsePageRank.DEFAULT_MAX_ITERATIONS);
+        double[][] p = new double[rhos.length][];
+        for (int r = 0; r < rhos.length; r++) {
+            p[r] = results[r].rank;
         }
-
-        return sortedUrls;
+        return p;
     }
 
     /**
-     * Ein RankPair besteht aus einer URL und dem zugehoerigen Rang, und dient
-     * als Hilfsklasse zum Sortieren der Urls
+     * Berechnet die PageRanks einmal mit rankSparse und liefert die
+     * Rangliste der URLs (s. Ranking). PARAMETER wie bei getSortedURLs.
      */
-    private static class RankPair {
-
-        public String url;
-        public double pr;
+    public static Ranking ranking(String[] urls, int[][] L, double rho) {
+        return new Ranking(rankSparse(L, rho), urls);
+    }
 
-        public RankPair(String u, double p) {
-            url = u;
-            pr = p;
-        }
+    /**
+     * Diese Methode erstellt eine Rangliste der uebergebenen URLs nach
+     * absteigendem PageRank. PARAMETER: urls: Die URLs der betrachteten Seiten
+     * L: die Linkmatrix (s. Aufgabenblatt) rho: Wahrscheinlichkeit, anstatt
+     * einem Link zu folgen, zufaellig irgendeine Seite zu besuchen
+     */
+    public static String[] getSortedURLs(String[] urls, int[][] L, double rho) {
+        return ranking(urls, L, rho).urls(0, L.length);
     }
 }
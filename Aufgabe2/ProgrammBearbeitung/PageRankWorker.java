@@ -0,0 +1,247 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * Worker-Prozess fuer DistributedPageRank. Aufruf:
+ *
+ * java PageRankWorker host port id graphFile
+ *
+ * Der Worker verbindet sich mit dem Koordinator, erfaehrt die Zahl N der
+ * Worker, liest die Links seiner Seiten (v mod N == id) aus der Graphdatei
+ * (GraphFile) und rechnet dann auf Anweisung des Koordinators Iterationen,
+ * bis er die Raenge abliefern soll. Antwortet der Koordinator nicht innerhalb
+ * von DistributedPageRank.READ_TIMEOUT, beendet sich der Worker.
+ */
+public class PageRankWorker {
+
+    private final int id;
+    private final int workers;
+    private final int n;
+    private final double rho;
+
+    //ausgehende Links der eigenen Seiten (lokale Nummer l = Seite v / workers)
+    private final int local;
+    private final int[] degree;
+
+    //Beitrag von Link k geht in sendValues[edgeSlot[k]]; die Slots sind nach Zielworker und Zielseite sortiert
+    private int[] edgeSlot;
+    private long[] slotKeys;
+    private int[] slotStart;
+
+    //recvList[i]: lokale Zielseiten der Werte, die Worker i pro Iteration schickt
+    private final int[][] recvList;
+
+    private PageRankWorker(int id, int workers, int n, double rho, int local, int[] degree) {
+        this.id = id;
+        this.workers = workers;
+        this.n = n;
+        this.rho = rho;
+        this.local = local;
+        this.degree = degree;
+        this.recvList = new int[workers][];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Aufruf: java PageRankWorker host port id graphFile");
+            System.exit(1);
+        }
+        int id = Integer.parseInt(args[2]);
+
+        try (GraphFile graph = GraphFile.open(args[3]); Socket s = new Socket()) {
+            int n = graph.size();
+            s.connect(new InetSocketAddress(args[0], Integer.parseInt(args[1])),
+                    DistributedPageRank.CONNECT_TIMEOUT);
+            s.setTcpNoDelay(true);
+            s.setSoTimeout(DistributedPageRank.READ_TIMEOUT);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(s.getInputStream(), DistributedPageRank.BUFFER));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(s.getOutputStream(), DistributedPageRank.BUFFER));
+            out.writeInt(id);
+            out.writeInt(n);
+            out.flush();
+
+            int workers = in.readInt();
+            double rho = in.readDouble();
+            if (id < 0 || id >= workers) {
+                throw new IOException("Worker-Nummer " + id + " bei " + workers + " Workern");
+            }
+
+            //nur die eigenen Seiten aus der Datei lesen
+            int local = DistributedPageRank.localCount(n, id, workers);
+            int[] degree = new int[local];
+            long edges = 0;
+            for (int l = 0; l < local; l++) {
+                degree[l] = graph.outDegree(id + l * workers);
+                edges += degree[l];
+            }
+            if (edges > Integer.MAX_VALUE - 8) {
+                throw new IOException("Zu viele Links fuer einen Worker: " + edges);
+            }
+            int[] targets = new int[(int) edges];
+            int k = 0;
+            for (int l = 0; l < local; l++) {
+                k += graph.successors(id + l * workers, targets, k);
+            }
+
+            PageRankWorker worker = new PageRankWorker(id, workers, n, rho, local, degree);
+            worker.buildSlots(targets);
+            worker.exchangeLists(in, out);
+            worker.run(in, out);
+        }
+    }
+
+    /**
+     * Fasst die Links nach Zielseite zusammen: jeder Zielseite (Worker w,
+     * lokale Nummer t) wird ein Slot zugeordnet, Schluessel w * 2^32 + t,
+     * sortiert. Die Slots von Worker w liegen in slotStart[w] ..
+     * slotStart[w+1]-1.
+     */
+    private void buildSlots(int[] targets) {
+        long[] keys = new long[targets.length];
+        for (int k = 0; k < targets.length; k++) {
+            keys[k] = key(targets[k]);
+        }
+        long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        int unique = 0;
+        for (int k = 0; k < sortedKeys.length; k++) {
+            if (unique == 0 || sortedKeys[unique - 1] != sortedKeys[k]) {
+                sortedKeys[unique++] = sortedKeys[k];
+            }
+        }
+        slotKeys = Arrays.copyOf(sortedKeys, unique);
+
+        edgeSlot = new int[targets.length];
+        for (int k = 0; k < targets.length; k++) {
+            edgeSlot[k] = Arrays.binarySearch(slotKeys, keys[k]);
+        }
+
+        slotStart = new int[workers + 1];
+        for (int s = 0; s < unique; s++) {
+            slotStart[(int) (slotKeys[s] >>> 32) + 1]++;
+        }
+        for (int w = 0; w < workers; w++) {
+            slotStart[w + 1] += slotStart[w];
+        }
+    }
+
+    private long key(int v) {
+        return ((long) (v % workers) << 32) | (v / workers);
+    }
+
+    //schickt pro Zielworker die lokalen Nummern der Slots, empfaengt dieselben Listen der anderen
+    private void exchangeLists(DataInputStream in, DataOutputStream out) throws IOException {
+        for (int w = 0; w < workers; w++) {
+            if (w != id) {
+                int[] list = new int[slotStart[w + 1] - slotStart[w]];
+                for (int s = 0; s < list.length; s++) {
+                    list[s] = (int) slotKeys[slotStart[w] + s];
+                }
+                DistributedPageRank.writeInts(out, list);
+            }
+        }
+        out.flush();
+
+        for (int i = 0; i < workers; i++) {
+            if (i != id) {
+                recvList[i] = DistributedPageRank.readInts(in);
+            }
+        }
+    }
+
+    private void run(DataInputStream in, DataOutputStream out) throws IOException {
+        double[] p = new double[local];
+        Arrays.fill(p, 1.0 / n);
+        double[] pNew = new double[local];
+        double[] acc = new double[local];
+        double[] sendValues = new double[slotKeys.length];
+        double[] buffer = null;
+
+        out.writeDouble(dangling(p));
+        out.flush();
+
+        while (true) {
+            byte command = in.readByte();
+            if (command == DistributedPageRank.GATHER) {
+                for (int l = 0; l < local; l++) {
+                    out.writeDouble(p[l]);
+                }
+                out.flush();
+                return;
+            }
+            if (command != DistributedPageRank.ITERATE) {
+                throw new IOException("Unbekannter Befehl " + command);
+            }
+            double base = in.readDouble();
+
+            //Beitraege p[l]/outDeg pro Zielseite summieren
+            Arrays.fill(sendValues, 0.0);
+            int k = 0;
+            for (int l = 0; l < local; l++) {
+                int deg = degree[l];
+                if (deg > 0) {
+                    double c = p[l] / deg;
+                    for (int end = k + deg; k < end; k++) {
+                        sendValues[edgeSlot[k]] += c;
+                    }
+                }
+            }
+            for (int w = 0; w < workers; w++) {
+                if (w != id) {
+                    for (int s = slotStart[w]; s < slotStart[w + 1]; s++) {
+                        out.writeDouble(sendValues[s]);
+                    }
+                }
+            }
+            out.flush();
+
+            //eigene Beitraege direkt, die der anderen Worker ueber den Koordinator
+            Arrays.fill(acc, 0.0);
+            for (int s = slotStart[id]; s < slotStart[id + 1]; s++) {
+                acc[(int) slotKeys[s]] += sendValues[s];
+            }
+            for (int i = 0; i < workers; i++) {
+                if (i != id) {
+                    int[] list = recvList[i];
+                    buffer = DistributedPageRank.readDoubles(in, list.length, buffer);
+                    for (int s = 0; s < list.length; s++) {
+                        acc[list[s]] += buffer[s];
+                    }
+                }
+            }
+
+            double residual = 0.0;
+            for (int l = 0; l < local; l++) {
+                double v = base + (1 - rho) * acc[l];
+                residual += Math.abs(v - p[l]);
+                pNew[l] = v;
+            }
+            double[] tmp = p;
+            p = pNew;
+            pNew = tmp;
+
+            out.writeDouble(residual);
+            out.writeDouble(dangling(p));
+            out.flush();
+        }
+    }
+
+    //Rang der eigenen Seiten ohne ausgehende Links
+    private double dangling(double[] p) {
+        double d = 0.0;
+        for (int l = 0; l < local; l++) {
+            if (degree[l] == 0) {
+                d += p[l];
+            }
+        }
+        return d;
+    }
+}
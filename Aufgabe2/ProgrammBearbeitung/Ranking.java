@@ -0,0 +1,297 @@
+/**
+ * Rangliste zu einmal berechneten PageRanks. Die Seiten werden absteigend
+ * nach Rang geordnet, bei gleichem Rang nach Nummer. Sortiert wird nur so
+ * weit wie noetig: topK(k) waehlt die besten k per Min-Heap aus (O(n log k)),
+ * page(offset, limit) sortiert ein int-Array der Seitennummern nur bis
+ * offset + limit und verwendet es bei spaeteren Aufrufen weiter. Es werden
+ * keine Objekte pro Seite angelegt.
+ */
+public class Ranking {
+
+    private final double[] scores;
+    private final String[] urls;
+
+    //order[0 .. sorted-1] sind die besten Seiten in richtiger Reihenfolge, der Rest ist unsortiert
+    private int[] order;
+    private int sorted = 0;
+
+    //bei Bedarf: Position jeder Seite (wenn order ganz sortiert ist) und die Seiten nach URL sortiert
+    private int[] position;
+    private int[] byUrl;
+
+    /**
+     * Rangliste zu den Raengen scores, urls[i] ist die URL von Seite i (darf
+     * null sein, wenn keine URLs benoetigt werden). Die Arrays werden nicht
+     * kopiert.
+     */
+    public Ranking(double[] scores, String[] urls) {
+        this.scores = scores;
+        this.urls = urls;
+    }
+
+    public int size() {
+        return scores.length;
+    }
+
+    public double score(int page) {
+        return scores[page];
+    }
+
+    public String url(int page) {
+        return urls[page];
+    }
+
+    /**
+     * Die Seite mit der URL url oder -1. Beim ersten Aufruf werden die Seiten
+     * nach URL sortiert (s. UrlDictionary.sortedOrder), danach wird binaer
+     * gesucht. Keine der URLs darf null sein.
+     */
+    public synchronized int pageOf(String url) {
+        if (byUrl == null) {
+            byUrl = UrlDictionary.sortedOrder(urls);
+        }
+        if (url == null) {
+            return -1;
+        }
+        int lo = 0, hi = byUrl.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = urls[byUrl[mid]].compareTo(url);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return byUrl[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Platz (ab 0) der Seite mit der URL url in der Rangliste oder -1
+     */
+    public int rankOf(String url) {
+        int page = pageOf(url);
+        return page < 0 ? -1 : rankOf(page);
+    }
+
+    /**
+     * Platz (ab 0) von page in der Rangliste. Ist die Liste schon ganz
+     * sortiert, wird nachgeschlagen, sonst werden die besseren Seiten gezaehlt
+     * (O(n)).
+     */
+    public synchronized int rankOf(int page) {
+        if (sorted == scores.length) {
+            if (position == null) {
+                position = new int[scores.length];
+                for (int r = 0; r < order.length; r++) {
+                    position[order[r]] = r;
+                }
+            }
+            return position[page];
+        }
+        int better = 0;
+        for (int i = 0; i < scores.length; i++) {
+            if (before(i, page)) {
+                better++;
+            }
+        }
+        return better;
+    }
+
+    /**
+     * Die k besten Seiten in absteigender Reihenfolge
+     */
+    public synchronized int[] topK(int k) {
+        k = Math.max(0, Math.min(k, scores.length));
+        if (order != null && k <= sorted) {
+            int[] top = new int[k];
+            System.arraycopy(order, 0, top, 0, k);
+            return top;
+        }
+
+        //Min-Heap: die Wurzel ist die schlechteste der bisher besten k
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < scores.length && k > 0; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++);
+            } else if (before(i, heap[0])) {
+                heap[0] = i;
+                siftDown(heap, 0, size);
+            }
+        }
+
+        //Wurzel nach hinten tauschen ergibt absteigende Reihenfolge
+        for (int end = size - 1; end > 0; end--) {
+            int tmp = heap[0];
+            heap[0] = heap[end];
+            heap[end] = tmp;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    /**
+     * Die Seiten auf den Plaetzen offset bis offset + limit - 1 (oder weniger
+     * am Ende der Liste)
+     */
+    public synchronized int[] page(int offset, int limit) {
+        int n = scores.length;
+        offset = Math.max(0, Math.min(offset, n));
+        int end = (int) Math.min(n, (long) offset + Math.max(0, limit));
+        ensureSorted(end);
+
+        int[] result = new int[end - offset];
+        System.arraycopy(order, offset, result, 0, end - offset);
+        return result;
+    }
+
+    /**
+     * Die URLs der Seiten auf den Plaetzen offset bis offset + limit - 1
+     */
+    public String[] urls(int offset, int limit) {
+        int[] pages = page(offset, limit);
+        String[] result = new String[pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            result[i] = urls[pages[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Sortiert order mindestens bis end. Es wird mindestens doppelt so weit
+     * wie bisher sortiert, damit Blaettern durch die ganze Liste insgesamt
+     * nur O(n log n) kostet.
+     */
+    private void ensureSorted(int end) {
+        int n = scores.length;
+        if (end <= sorted) {
+            return;
+        }
+        if (order == null) {
+            order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+        }
+        end = Math.min(n, Math.max(end, 2 * sorted));
+
+        //die naechstbesten Seiten nach vorne holen, dann nur diese sortieren
+        if (end < n) {
+            select(sorted, n - 1, end);
+        }
+        quicksort(sorted, end - 1);
+        sorted = end;
+    }
+
+    //true, wenn Seite a vor Seite b kommt
+    private boolean before(int a, int b) {
+        double sa = scores[a];
+        double sb = scores[b];
+        return sa > sb || (sa == sb && a < b);
+    }
+
+    //ordnet order[lo .. hi] so, dass order[lo .. k-1] vor allen in order[k .. hi] kommen
+    private void select(int lo, int hi, int k) {
+        while (hi > lo) {
+            int p = partition(lo, hi);
+            if (p == k || p == k - 1) {
+                return;
+            } else if (p < k) {
+                lo = p + 1;
+            } else {
+                hi = p - 1;
+            }
+        }
+    }
+
+    private void quicksort(int lo, int hi) {
+        while (hi - lo > 16) {
+            int p = partition(lo, hi);
+            //kleinere Seite rekursiv, groessere in der Schleife
+            if (p - lo < hi - p) {
+                quicksort(lo, p - 1);
+                lo = p + 1;
+            } else {
+                quicksort(p + 1, hi);
+                hi = p - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int v = order[i];
+            int j = i - 1;
+            while (j >= lo && before(v, order[j])) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = v;
+        }
+    }
+
+    //Partitionierung um den Median aus erstem, mittlerem und letztem Element, liefert dessen Position
+    private int partition(int lo, int hi) {
+        int mid = (lo + hi) >>> 1;
+        if (before(order[mid], order[lo])) {
+            swap(lo, mid);
+        }
+        if (before(order[hi], order[lo])) {
+            swap(lo, hi);
+        }
+        if (before(order[hi], order[mid])) {
+            swap(mid, hi);
+        }
+        swap(mid, hi);
+        int pivot = order[hi];
+
+        int store = lo;
+        for (int i = lo; i < hi; i++) {
+            if (before(order[i], pivot)) {
+                swap(i, store++);
+            }
+        }
+        swap(store, hi);
+        return store;
+    }
+
+    private void swap(int i, int j) {
+        int tmp = order[i];
+        order[i] = order[j];
+        order[j] = tmp;
+    }
+
+    //Heap-Ordnung: die Seite, die in der Rangliste zuletzt kommt, steht oben
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!before(heap[parent], heap[i])) {
+                break;
+            }
+            int tmp = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = tmp;
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int i, int size) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!before(heap[i], heap[child])) {
+                break;
+            }
+            int tmp = heap[i];
+            heap[i] = heap[child];
+            heap[child] = tmp;
+            i = child;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Ein LinearOperator mit zeilenweisem Zugriff, wie ihn Jacobi- und
+ * Gauss-Seidel-Verfahren benoetigen.
+ */
+public interface RowOperator extends LinearOperator {
+
+    /**
+     * Skalarprodukt der Zeile i von A mit x
+     */
+    double rowDot(int i, double[] x);
+
+    /**
+     * Diagonaleintrag A[i][i]
+     */
+    double diagonal(int i);
+}
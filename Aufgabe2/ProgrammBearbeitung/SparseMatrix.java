@@ -0,0 +1,361 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Duenn besetzte Matrix im CSR-Format (compressed sparse row): die Eintraege
+ * von Zeile i stehen mit aufsteigendem Spaltenindex in
+ * colIdx/values[rowPtr[i] .. rowPtr[i+1]-1]. Der Speicherbedarf ist
+ * O(rows + Nichtnulleintraege) statt O(rows * cols).
+ *
+ * Die Matrix ist unveraenderlich. Als RowOperator kann sie direkt an
+ * IterativeSolver uebergeben werden.
+ */
+public class SparseMatrix implements RowOperator {
+
+    //ab so vielen Nichtnulleintraegen pro Teilaufgabe wird nicht weiter geteilt
+    private static final int PARALLEL_GRAIN = 1 << 14;
+
+    private final int rows, cols;
+    private final int[] rowPtr;
+    private final int[] colIdx;
+    private final double[] values;
+
+    SparseMatrix(int rows, int cols, int[] rowPtr, int[] colIdx, double[] values) {
+        this.rows = rows;
+        this.cols = cols;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.values = values;
+    }
+
+    /**
+     * Erstellt eine rows x cols Matrix aus den ersten count Tripeln
+     * (rowIndex[k], colIndex[k], value[k]). Mehrfach vorkommende Positionen
+     * werden aufsummiert.
+     */
+    public static SparseMatrix fromTriplets(int rows, int cols, int[] rowIndex,
+            int[] colIndex, double[] value, int count) {
+
+        //stabil nach Spalte, dann stabil nach Zeile sortieren (je ein Counting-Sort),
+        //danach ist jede Zeile nach Spalten sortiert
+        int[] byCol = new int[count];
+        int[] colStart = new int[cols + 1];
+        for (int k = 0; k < count; k++) {
+            colStart[colIndex[k] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            colStart[j + 1] += colStart[j];
+        }
+        for (int k = 0; k < count; k++) {
+            byCol[colStart[colIndex[k]]++] = k;
+        }
+
+        int[] rowPtr = new int[rows + 1];
+        for (int k = 0; k < count; k++) {
+            rowPtr[rowIndex[k] + 1]++;
+        }
+        for (int i = 0; i < rows; i++) {
+            rowPtr[i + 1] += rowPtr[i];
+        }
+        int[] next = Arrays.copyOf(rowPtr, rows);
+        int[] colIdx = new int[count];
+        double[] values = new double[count];
+        for (int t = 0; t < count; t++) {
+            int k = byCol[t];
+            int pos = next[rowIndex[k]]++;
+            colIdx[pos] = colIndex[k];
+            values[pos] = value[k];
+        }
+
+        //Duplikate zusammenfassen
+        int nnz = 0;
+        int rowStart = 0;
+        for (int i = 0; i < rows; i++) {
+            int rowEnd = rowPtr[i + 1];
+            int first = nnz;
+            for (int k = rowStart; k < rowEnd; k++) {
+                if (nnz > first && colIdx[nnz - 1] == colIdx[k]) {
+                    values[nnz - 1] += values[k];
+                } else {
+                    colIdx[nnz] = colIdx[k];
+                    values[nnz] = values[k];
+                    nnz++;
+                }
+            }
+            rowStart = rowEnd;
+            rowPtr[i + 1] = nnz;
+        }
+
+        return new SparseMatrix(rows, cols, rowPtr, Arrays.copyOf(colIdx, nnz),
+                Arrays.copyOf(values, nnz));
+    }
+
+    /**
+     * Erstellt die Matrix aus einer Linkmatrix (s. LinkMatrix), jeder Eintrag
+     * != 0 wird zu 1.0.
+     */
+    public static SparseMatrix fromLinkMatrix(int[][] L) {
+        int n = L.length;
+        int[] rowPtr = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int c = 0;
+            for (int j = 0; j < n; j++) {
+                if (L[i][j] != 0) {
+                    c++;
+                }
+            }
+            rowPtr[i + 1] = rowPtr[i] + c;
+        }
+
+        int[] colIdx = new int[rowPtr[n]];
+        double[] values = new double[rowPtr[n]];
+        for (int i = 0; i < n; i++) {
+            int pos = rowPtr[i];
+            for (int j = 0; j < n; j++) {
+                if (L[i][j] != 0) {
+                    colIdx[pos] = j;
+                    values[pos] = 1.0;
+                    pos++;
+                }
+            }
+        }
+
+        return new SparseMatrix(n, n, rowPtr, colIdx, values);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int nonZeros() {
+        return rowPtr[rows];
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Eintrag (i,j), 0 falls nicht gespeichert
+     */
+    public double get(int i, int j) {
+        int k = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i + 1], j);
+        return k >= 0 ? values[k] : 0.0;
+    }
+
+    @Override
+    public double diagonal(int i) {
+        return get(i, i);
+    }
+
+    @Override
+    public double rowDot(int i, double[] x) {
+        double acc = 0.0;
+        for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+            acc += values[k] * x[colIdx[k]];
+        }
+        return acc;
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        multiply(x, y);
+    }
+
+    /**
+     * y = A*x
+     */
+    public double[] multiply(double[] x) {
+        double[] y = new double[rows];
+        multiply(x, y);
+        return y;
+    }
+
+    /**
+     * y = A*x, y hat die Laenge rows und wird ueberschrieben
+     */
+    public void multiply(double[] x, double[] y) {
+        multiplyRows(x, y, 0, rows);
+    }
+
+    /**
+     * y = A*x wie multiply, die Zeilen werden aber auf den ForkJoinPool
+     * verteilt. Die Aufteilung richtet sich nach der Zahl der
+     * Nichtnulleintraege, nicht nach der Zahl der Zeilen: jeder Bereich wird
+     * an der Zeile geteilt, vor der etwa die Haelfte seiner Eintraege liegt.
+     */
+    public void multiplyParallel(double[] x, double[] y) {
+        if (nonZeros() <= PARALLEL_GRAIN) {
+            multiply(x, y);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MultiplyTask(x, y, 0, rows));
+        }
+    }
+
+    private void multiplyRows(double[] x, double[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double acc = 0.0;
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                acc += values[k] * x[colIdx[k]];
+            }
+            y[i] = acc;
+        }
+    }
+
+    /**
+     * y = A^T*x, ohne die transponierte Matrix aufzustellen
+     */
+    public double[] transposeMultiply(double[] x) {
+        double[] y = new double[cols];
+        for (int i = 0; i < rows; i++) {
+            double xi = x[i];
+            if (xi != 0) {
+                for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                    y[colIdx[k]] += values[k] * xi;
+                }
+            }
+        }
+        return y;
+    }
+
+    /**
+     * Die transponierte Matrix im CSR-Format
+     */
+    public SparseMatrix transpose() {
+        int nnz = nonZeros();
+        int[] tPtr = new int[cols + 1];
+        for (int k = 0; k < nnz; k++) {
+            tPtr[colIdx[k] + 1]++;
+        }
+        for (int j = 0; j < cols; j++) {
+            tPtr[j + 1] += tPtr[j];
+        }
+
+        //Zeilen aufsteigend durchlaufen, damit die neuen Zeilen sortiert sind
+        int[] next = Arrays.copyOf(tPtr, cols);
+        int[] tIdx = new int[nnz];
+        double[] tValues = new double[nnz];
+        for (int i = 0; i < rows; i++) {
+            for (int k = rowPtr[i]; k < rowPtr[i + 1]; k++) {
+                int pos = next[colIdx[k]]++;
+                tIdx[pos] = i;
+                tValues[pos] = values[k];
+            }
+        }
+
+        return new SparseMatrix(cols, rows, tPtr, tIdx, tValues);
+    }
+
+    /**
+     * Dieselbe Matrix im CSC-Format
+     */
+    public CSC toCSC() {
+        return new CSC(transpose());
+    }
+
+    /**
+     * Duenn besetzte Matrix im CSC-Format (compressed sparse column): die
+     * Eintraege von Spalte j stehen in rowIdx/values[colPtr[j] ..
+     * colPtr[j+1]-1]. Intern ist das genau die CSR-Darstellung von A^T.
+     */
+    public static class CSC {
+
+        private final SparseMatrix transposed;
+
+        CSC(SparseMatrix transposed) {
+            this.transposed = transposed;
+        }
+
+        public int rows() {
+            return transposed.cols;
+        }
+
+        public int cols() {
+            return transposed.rows;
+        }
+
+        public int nonZeros() {
+            return transposed.nonZeros();
+        }
+
+        /**
+         * y = A*x, spaltenweise
+         */
+        public double[] multiply(double[] x) {
+            return transposed.transposeMultiply(x);
+        }
+
+        /**
+         * y = A^T*x, jede Komponente ist ein Skalarprodukt mit einer Spalte
+         */
+        public double[] transposeMultiply(double[] x) {
+            return transposed.multiply(x);
+        }
+
+        /**
+         * y = A^T*x, die Spalten werden auf den ForkJoinPool verteilt
+         */
+        public void transposeMultiplyParallel(double[] x, double[] y) {
+            transposed.multiplyParallel(x, y);
+        }
+
+        /**
+         * Dieselbe Matrix im CSR-Format
+         */
+        public SparseMatrix toCSR() {
+            return transposed.transpose();
+        }
+    }
+
+    /**
+     * Teilt den Zeilenbereich in zwei Teile mit etwa gleich vielen
+     * Nichtnulleintraegen, bis ein Teil hoechstens PARALLEL_GRAIN
+     * Nichtnulleintraege hat oder nur noch eine Zeile umfasst.
+     */
+    private class MultiplyTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] x, y;
+        private final int from, to;
+
+        MultiplyTask(double[] x, double[] y, int from, int to) {
+            this.x = x;
+            this.y = y;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowPtr[to] - rowPtr[from] <= PARALLEL_GRAIN || to - from < 2) {
+                multiplyRows(x, y, from, to);
+            } else {
+                int mid = split(from, to);
+                invokeAll(new MultiplyTask(x, y, from, mid), new MultiplyTask(x, y, mid, to));
+            }
+        }
+
+        //erste Zeile mid in from+1 .. to-1 mit rowPtr[mid] >= Mitte der Eintraege (binaere Suche)
+        private int split(int from, int to) {
+            int half = rowPtr[from] + (rowPtr[to] - rowPtr[from]) / 2;
+            int lo = from + 1;
+            int hi = to - 1;
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (rowPtr[m] < half) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,793 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * PageRank per Potenzmethode direkt auf dem Linkgraphen. Anders als
+ * PageRank.rank wird die n x n Matrix A~ nie aufgestellt: pro Iteration wird
+ *
+ * p'[i] = (1-rho) * (Summe ueber j->i von p[j]/outDeg(j) + d/n) + rho/n
+ *
+ * berechnet, wobei d die Summe der Raenge aller Seiten ohne ausgehende Links
+ * ist (diese verteilen ihren Rang gleichmaessig). Speicher O(n + Links),
+ * Aufwand pro Iteration O(n + Links).
+ */
+public class SparsePageRank {
+
+    public static final double DEFAULT_TOLERANCE = 1E-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+    //ab so vielen Links rechnet rank(g, rho) parallel
+    static final int PARALLEL_EDGES = 1 << 20;
+
+    //Abstand der Extrapolationsschritte bei AITKEN und QUADRATIC
+    static final int EXTRAPOLATION_PERIOD = 10;
+
+    //ADAPTIVE friert eine Seite ein, wenn sich ihr Rang relativ um hoechstens FREEZE_FACTOR * tol aendert
+    static final double FREEZE_FACTOR = 1.0;
+
+    /**
+     * Verfahren zur Beschleunigung der Potenzmethode, s. rank(g, rho, tol,
+     * maxIter, acceleration)
+     */
+    public enum Acceleration {
+        /** einfache Potenzmethode */
+        NONE,
+        /** komponentenweise Aitken-Extrapolation alle EXTRAPOLATION_PERIOD Iterationen */
+        AITKEN,
+        /** quadratische Extrapolation aus den letzten vier Iterierten (Kamvar et al.) */
+        QUADRATIC,
+        /** Gauss-Seidel: neue Raenge werden sofort in derselben Iteration verwendet */
+        GAUSS_SEIDEL,
+        /** Seiten mit kleiner relativer Aenderung werden nicht mehr neu berechnet */
+        ADAPTIVE
+    }
+
+    /**
+     * Ergebnis einer PageRank-Berechnung: der normierte Rangvektor, die Zahl
+     * der Iterationen und die letzte Aenderung ||p' - p||_1. pageUpdates zaehlt
+     * die Neuberechnungen einzelner Raenge (bei der einfachen Potenzmethode
+     * n pro Iteration) als Mass fuer den Aufwand. baselineIterations und
+     * baselinePageUpdates sind nur von rankWithBaseline gesetzt, sonst -1.
+     */
+    public static class Result {
+
+        public final double[] rank;
+        public final int iterations;
+        public final double residual;
+        public final boolean converged;
+        public final long pageUpdates;
+        public final int baselineIterations;
+        public final long baselinePageUpdates;
+
+        Result(double[] rank, int iterations, double residual, boolean converged) {
+            this(rank, iterations, residual, converged, (long) iterations * rank.length);
+        }
+
+        Result(double[] rank, int iterations, double residual, boolean converged,
+                long pageUpdates) {
+            this(rank, iterations, residual, converged, pageUpdates, -1, -1);
+        }
+
+        Result(double[] rank, int iterations, double residual, boolean converged,
+                long pageUpdates, int baselineIterations, long baselinePageUpdates) {
+            this.rank = rank;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.converged = converged;
+            this.pageUpdates = pageUpdates;
+            this.baselineIterations = baselineIterations;
+            this.baselinePageUpdates = baselinePageUpdates;
+        }
+
+        /**
+         * Gegenueber der einfachen Potenzmethode eingesparte Iterationen,
+         * falls mit rankWithBaseline berechnet. Bei ADAPTIVE rechnen die
+         * meisten Iterationen nur einen Teil der Seiten, dort ist
+         * pageUpdatesSaved() aussagekraeftiger.
+         */
+        public int iterationsSaved() {
+            return baselineIterations < 0 ? 0 : baselineIterations - iterations;
+        }
+
+        /**
+         * Gegenueber der einfachen Potenzmethode eingesparte Neuberechnungen
+         * einzelner Raenge (s. pageUpdates), falls mit rankWithBaseline
+         * berechnet; negativ, wenn das Verfahren mehr Aufwand hatte
+         */
+        public long pageUpdatesSaved() {
+            return baselinePageUpdates < 0 ? 0 : baselinePageUpdates - pageUpdates;
+        }
+    }
+
+    /**
+     * Berechnet die PageRanks mit Standardtoleranz und -iterationszahl.
+     * PARAMETER: g: der Linkgraph rho: Wahrscheinlichkeit, zufaellig
+     * irgendeine Seite zu besuchen, anstatt einem Link zu folgen
+     */
+    public static double[] rank(LinkGraph g, double rho) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads > 1 && g.edgeCount() >= PARALLEL_EDGES) {
+            return rankParallel(g, rho, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, threads).rank;
+        }
+        return rank(g, rho, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS).rank;
+    }
+
+    /**
+     * Berechnet die PageRanks, bis sich der Rangvektor in der 1-Norm um
+     * weniger als tol aendert oder maxIter Iterationen erreicht sind.
+     */
+    public static Result rank(LinkGraph g, double rho, double tol, int maxIter) {
+        int n = g.size();
+        double[] p = new double[n];
+        Arrays.fill(p, 1.0 / n);
+        return iterate(g, rho, tol, maxIter, p);
+    }
+
+    /**
+     * Wie rank(g, rho, tol, maxIter), beginnt aber mit dem Startvektor start
+     * statt mit der Gleichverteilung. Liegt start nahe an der Loesung (z.B.
+     * das Ergebnis fuer einen leicht veraenderten Graphen), sind deutlich
+     * weniger Iterationen noetig. start wird nicht veraendert.
+     */
+    public static Result rank(LinkGraph g, double rho, double tol, int maxIter, double[] start) {
+        double[] p = start.clone();
+        normalize(p);
+        return iterate(g, rho, tol, maxIter, p);
+    }
+
+    /**
+     * Berechnet die PageRanks neu, nachdem sich der Graph geaendert hat.
+     * PARAMETER: updated: der Graph nach der Aenderung (z.B. old.apply(delta))
+     * previous: die Raenge des alten Graphen, darf kuerzer als updated.size()
+     * sein, wenn Seiten angehaengt wurden.
+     *
+     * Die Iteration startet mit den alten Raengen (neue Seiten erhalten den
+     * Anteil 1/n). Da sich bei kleinen Aenderungen nur wenige Raenge
+     * nennenswert verschieben, konvergiert sie meist in einem Bruchteil der
+     * Iterationen einer Neuberechnung.
+     */
+    public static Result rankIncremental(LinkGraph updated, double[] previous, double rho,
+            double tol, int maxIter) {
+        int n = updated.size();
+        double[] p = new double[n];
+        int known = Math.min(n, previous.length);
+
+        //alte Raenge auf den Anteil der alten Seiten an allen Seiten skalieren
+        double scale = (double) known / n;
+        double oldSum = 0.0;
+        for (int i = 0; i < known; i++) {
+            oldSum += previous[i];
+        }
+        for (int i = 0; i < known; i++) {
+            p[i] = oldSum > 0 ? previous[i] / oldSum * scale : 1.0 / n;
+        }
+        for (int i = known; i < n; i++) {
+            p[i] = 1.0 / n;
+        }
+
+        return iterate(updated, rho, tol, maxIter, p);
+    }
+
+    /**
+     * Kurzform von rankIncremental fuer einen Graphen und seine Aenderungen.
+     */
+    public static Result rankIncremental(LinkGraph old, GraphDelta delta, double[] previous,
+            double rho, double tol, int maxIter) {
+        return rankIncremental(old.apply(delta), previous, rho, tol, maxIter);
+    }
+
+    /**
+     * Wie rank(g, rho, tol, maxIter), aber mit dem Beschleunigungsverfahren
+     * acceleration. Alle Verfahren liefern (bis auf tol) dieselben Raenge.
+     */
+    public static Result rank(LinkGraph g, double rho, double tol, int maxIter,
+            Acceleration acceleration) {
+        int n = g.size();
+        double[] p = new double[n];
+        Arrays.fill(p, 1.0 / n);
+
+        switch (acceleration) {
+            case AITKEN:
+            case QUADRATIC:
+                return iterateExtrapolated(g, rho, tol, maxIter, p, acceleration);
+            case GAUSS_SEIDEL:
+                return iterateGaussSeidel(g, rho, tol, maxIter, p);
+            case ADAPTIVE:
+                return iterateAdaptive(g, rho, tol, maxIter, p);
+            default:
+                return iterate(g, rho, tol, maxIter, p);
+        }
+    }
+
+    /**
+     * Berechnet die Raenge mit acceleration und zum Vergleich mit der
+     * einfachen Potenzmethode. Das Ergebnis enthaelt baselineIterations und
+     * baselinePageUpdates, so dass iterationsSaved() und pageUpdatesSaved()
+     * die Ersparnis fuer diesen Graphen angeben.
+     */
+    public static Result rankWithBaseline(LinkGraph g, double rho, double tol, int maxIter,
+            Acceleration acceleration) {
+        Result baseline = rank(g, rho, tol, maxIter);
+        Result r = rank(g, rho, tol, maxIter, acceleration);
+        return new Result(r.rank, r.iterations, r.residual, r.converged, r.pageUpdates,
+                baseline.iterations, baseline.pageUpdates);
+    }
+
+    /**
+     * Berechnet die PageRanks fuer alle Werte in rhos gemeinsam. Mit der
+     * spaltenstochastischen Matrix M (Links plus gleichmaessige Verteilung der
+     * Seiten ohne Links) und der Gleichverteilung u ist die Loesung von
+     * p = (1-rho)*M*p + rho*u die Reihe
+     *
+     * p(rho) = rho * Summe ueber k von (1-rho)^k * M^k * u.
+     *
+     * Die Vektoren x_k = M^k * u haengen nicht von rho ab. Pro Iteration wird
+     * also nur ein Vektor ueber die Linklisten multipliziert und dann zu
+     * jedem p(rho) mit seinem Gewicht addiert; das Addieren liest die Vektoren
+     * nur sequentiell und ist gegenueber dem Durchlauf der Links billig. Der
+     * Speicherbedarf fuer die Links und die zufaelligen Zugriffe bleibt der
+     * einer einzelnen Berechnung.
+     *
+     * Bricht man die Reihe nach Term k ab und ergaenzt (1-rho)^(k+1) * x_{k+1}
+     * fuer den Rest, erhaelt man genau die (k+1)-te Iterierte der
+     * Potenzmethode ab u. Sie aendert sich von k nach k+1 um
+     * (1-rho)^(k+1) * ||x_{k+1} - x_k||_1; liegt das unter tol, ist p(rho)
+     * fertig. Ergebnisse und Iterationszahlen stimmen also mit
+     * rank(g, rho, tol, maxIter) ueberein, die Dauer bestimmt das kleinste rho.
+     * Liefert ein Ergebnis pro rho in derselben Reihenfolge. maxIter muss
+     * positiv sein.
+     */
+    public static Result[] rankSweep(LinkGraph g, double[] rhos, double tol, int maxIter) {
+        int n = g.size();
+        int m = rhos.length;
+        if (maxIter <= 0) {
+            throw new IllegalArgumentException("maxIter muss positiv sein");
+        }
+        LinkGraph in = g.reverse();
+
+        double[] x = new double[n];
+        Arrays.fill(x, 1.0 / n);
+        double[] xNew = new double[n];
+        double[] contrib = new double[n];
+
+        //weight[r] = (1-rho)^k, p[r] = Summe der Terme bis k-1
+        double[][] p = new double[m][n];
+        double[] weight = new double[m];
+        double[] residual = new double[m];
+        int[] iterations = new int[m];
+        boolean[] active = new boolean[m];
+        for (int r = 0; r < m; r++) {
+            if (!(rhos[r] > 0 && rhos[r] <= 1)) {
+                throw new IllegalArgumentException("rho muss in (0, 1] liegen");
+            }
+            weight[r] = 1.0;
+            active[r] = true;
+        }
+
+        int remaining = m;
+        int iter = 0;
+        while (remaining > 0) {
+            //x_{k+1} = M * x_k
+            double dangling = contributions(g, x, contrib, 0, n);
+            double change = pull(in, contrib, x, xNew, dangling / n, 1.0, 0, n);
+            iter++;
+
+            for (int r = 0; r < m; r++) {
+                if (!active[r]) {
+                    continue;
+                }
+                double[] pr = p[r];
+                double w = weight[r];
+                double next = w * (1 - rhos[r]);
+
+                //geschlossene Schaetzung aendert sich um (1-rho)^(k+1) * ||x_{k+1} - x_k||
+                double delta = next * change;
+                if (delta <= tol || iter == maxIter) {
+                    //p += rho*(1-rho)^k * x_k + (1-rho)^(k+1) * x_{k+1}
+                    double a = rhos[r] * w;
+                    for (int i = 0; i < n; i++) {
+                        pr[i] += a * x[i] + next * xNew[i];
+                    }
+                    iterations[r] = iter;
+                    residual[r] = delta;
+                    active[r] = false;
+                    remaining--;
+                } else {
+                    double a = rhos[r] * w;
+                    for (int i = 0; i < n; i++) {
+                        pr[i] += a * x[i];
+                    }
+                    weight[r] = next;
+                }
+            }
+
+            double[] tmp = x;
+            x = xNew;
+            xNew = tmp;
+        }
+
+        Result[] results = new Result[m];
+        for (int r = 0; r < m; r++) {
+            normalize(p[r]);
+            results[r] = new Result(p[r], iterations[r], residual[r], residual[r] <= tol);
+        }
+        return results;
+    }
+
+    //Potenzmethode mit periodischer Aitken- oder quadratischer Extrapolation
+    private static Result iterateExtrapolated(LinkGraph g, double rho, double tol, int maxIter,
+            double[] p, Acceleration acceleration) {
+        int n = g.size();
+        LinkGraph in = g.reverse();
+        double[] contrib = new double[n];
+
+        //die letzten vier Iterierten, history[0] ist die aktuelle
+        double[][] history = new double[4][];
+        history[0] = p;
+        for (int h = 1; h < 4; h++) {
+            history[h] = new double[n];
+        }
+        int needed = acceleration == Acceleration.AITKEN ? 3 : 4;
+
+        //Sicherung vor der letzten Extrapolation, falls diese die Konvergenz verschlechtert
+        double[] backup = new double[n];
+        double residualBefore = 0.0;
+        boolean check = false;
+        int period = Math.max(EXTRAPOLATION_PERIOD, needed);
+
+        int iter = 0;
+        int sinceExtrapolation = 0;
+        long updates = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iter < maxIter && residual > tol) {
+            double[] pNew = history[3];
+            history[3] = history[2];
+            history[2] = history[1];
+            history[1] = history[0];
+            history[0] = pNew;
+
+            double dangling = contributions(g, history[1], contrib, 0, n);
+            double base = (1 - rho) * dangling / n + rho / n;
+            residual = pull(in, contrib, history[1], pNew, base, 1 - rho, 0, n);
+            iter++;
+            sinceExtrapolation++;
+            updates += n;
+
+            //Extrapolation verwerfen, wenn danach die Aenderung groesser ist als vorher
+            if (check) {
+                check = false;
+                if (residual > residualBefore) {
+                    System.arraycopy(backup, 0, history[0], 0, n);
+                    residual = residualBefore;
+                    period *= 2;
+                    sinceExtrapolation = 0;
+                    continue;
+                }
+            }
+
+            if (residual > tol && sinceExtrapolation >= period) {
+                System.arraycopy(history[0], 0, backup, 0, n);
+                boolean accepted = acceleration == Acceleration.AITKEN
+                        ? aitken(history[0], history[1], history[2])
+                        : quadratic(history[0], history[1], history[2], history[3]);
+                updates += n;
+                sinceExtrapolation = 0;
+                if (accepted) {
+                    normalize(history[0]);
+                    residualBefore = residual;
+                    check = true;
+                } else {
+                    //Extrapolation mit nicht positiven Raengen ganz verwerfen
+                    System.arraycopy(backup, 0, history[0], 0, n);
+                    period *= 2;
+                }
+            }
+        }
+
+        p = history[0];
+        normalize(p);
+        return new Result(p, iter, residual, residual <= tol, updates);
+    }
+
+    //x0 = x0 - (x0 - x1)^2 / (x0 - 2 x1 + x2) komponentenweise, x0 neueste Iterierte.
+    //false, wenn ein Rang nicht positiv wuerde; x0 ist dann teilweise ueberschrieben
+    private static boolean aitken(double[] x0, double[] x1, double[] x2) {
+        for (int i = 0; i < x0.length; i++) {
+            double d1 = x0[i] - x1[i];
+            double d2 = x0[i] - 2 * x1[i] + x2[i];
+            if (Math.abs(d2) > 1E-300) {
+                double v = x0[i] - d1 * d1 / d2;
+                if (!(v > 0) || Double.isInfinite(v)) {
+                    return false;
+                }
+                x0[i] = v;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Quadratische Extrapolation (Kamvar, Haveliwala, Manning, Golub 2003):
+     * mit y_k = x_k - x3 werden g1, g2 aus min ||g1*y2 + g2*y1 + y0|| bestimmt
+     * (Normalgleichungen 2x2) und x0 durch eine Linearkombination der letzten
+     * drei Iterierten ersetzt. Liefert false, wenn das nicht moeglich ist oder
+     * ein Rang nicht positiv wuerde; x0 ist dann teilweise ueberschrieben.
+     */
+    private static boolean quadratic(double[] x0, double[] x1, double[] x2, double[] x3) {
+        int n = x0.length;
+        double a11 = 0, a12 = 0, a22 = 0, r1 = 0, r2 = 0;
+        for (int i = 0; i < n; i++) {
+            double y1 = x2[i] - x3[i];
+            double y2 = x1[i] - x3[i];
+            double y3 = x0[i] - x3[i];
+            a11 += y1 * y1;
+            a12 += y1 * y2;
+            a22 += y2 * y2;
+            r1 -= y1 * y3;
+            r2 -= y2 * y3;
+        }
+
+        double det = a11 * a22 - a12 * a12;
+        if (!(Math.abs(det) > 1E-300)) {
+            return false;
+        }
+        double g1 = (r1 * a22 - r2 * a12) / det;
+        double g2 = (r2 * a11 - r1 * a12) / det;
+        double g3 = 1.0;
+
+        double b0 = g1 + g2 + g3;
+        double b1 = g2 + g3;
+        double b2 = g3;
+        for (int i = 0; i < n; i++) {
+            double v = b0 * x2[i] + b1 * x1[i] + b2 * x0[i];
+            if (!(v > 0) || Double.isInfinite(v)) {
+                return false;
+            }
+            x0[i] = v;
+        }
+        return true;
+    }
+
+    //Gauss-Seidel: p wird in-place aktualisiert, der Rang der Seiten ohne Links aus dem letzten Durchlauf
+    private static Result iterateGaussSeidel(LinkGraph g, double rho, double tol, int maxIter,
+            double[] p) {
+        int n = g.size();
+        LinkGraph in = g.reverse();
+        int[] offsets = in.offsets;
+        int[] sources = in.targets;
+
+        //1/outDeg(j), 0 fuer Seiten ohne Links; contrib[j] = p[j]/outDeg(j) wird mit p nachgefuehrt
+        double[] weight = new double[n];
+        for (int j = 0; j < n; j++) {
+            int deg = g.offsets[j + 1] - g.offsets[j];
+            weight[j] = deg == 0 ? 0.0 : 1.0 / deg;
+        }
+        double[] contrib = new double[n];
+        double dangling = contributions(g, p, contrib, 0, n);
+
+        int iter = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iter < maxIter && residual > tol) {
+            double base = (1 - rho) * dangling / n + rho / n;
+            residual = 0.0;
+            for (int i = 0; i < n; i++) {
+                double acc = 0.0;
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    acc += contrib[sources[k]];
+                }
+                double v = base + (1 - rho) * acc;
+                residual += Math.abs(v - p[i]);
+                p[i] = v;
+                contrib[i] = v * weight[i];
+            }
+            normalize(p);
+            dangling = contributions(g, p, contrib, 0, n);
+            iter++;
+        }
+
+        return new Result(p, iter, residual, residual <= tol);
+    }
+
+    /**
+     * Adaptive Potenzmethode (Kamvar, Haveliwala, Golub 2003): Seiten, deren
+     * Rang sich relativ um hoechstens FREEZE_FACTOR * tol aendert, werden
+     * eingefroren und bleiben es. Solange mehr als die Haelfte der Seiten
+     * aktiv ist, wird wie in iterate ueber alle Seiten gerechnet, danach nur
+     * ueber die aktiven Seiten und ihre eingehenden Links; die Beitraege
+     * p[j]/outDeg(j) und der Rang der Seiten ohne Links werden dabei nur fuer
+     * geaenderte Seiten nachgefuehrt.
+     *
+     * Aendern sich die aktiven Seiten zusammen um hoechstens tol, prueft eine
+     * volle Iteration die Konvergenz mit demselben Kriterium wie iterate.
+     * Scheitert sie, wird mit den Seiten weitergerechnet, die sich dabei noch
+     * staerker geaendert haben. Wie viel eingespart wird, haengt davon ab, wie
+     * unterschiedlich schnell die Seiten konvergieren (s. pageUpdates).
+     */
+    private static Result iterateAdaptive(LinkGraph g, double rho, double tol, int maxIter,
+            double[] p) {
+        int n = g.size();
+        LinkGraph in = g.reverse();
+        int[] offsets = in.offsets;
+        int[] sources = in.targets;
+        double[] contrib = new double[n];
+        double dangling = 0.0;
+
+        //aktive Seiten und ihre neuen Raenge, die ersten active Eintraege werden neu berechnet
+        int[] activePages = new int[n];
+        double[] values = new double[n];
+        int active = n;
+        double freeze = FREEZE_FACTOR * tol;
+
+        int iter = 0;
+        long updates = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        boolean check = false;
+        while (iter < maxIter) {
+            if (check || active > n / 2) {
+                //volle Iteration wie in iterate, danach die noch aktiven Seiten bestimmen
+                dangling = contributions(g, p, contrib, 0, n);
+                double base = (1 - rho) * dangling / n + rho / n;
+                residual = pull(in, contrib, p, values, base, 1 - rho, 0, n);
+                active = 0;
+                for (int i = 0; i < n; i++) {
+                    if (Math.abs(values[i] - p[i]) > freeze * values[i]) {
+                        activePages[active++] = i;
+                    }
+                }
+                double[] tmp = p;
+                p = values;
+                values = tmp;
+                updates += n;
+                iter++;
+                if (residual <= tol) {
+                    break;
+                }
+                check = false;
+                if (active <= n / 2) {
+                    dangling = contributions(g, p, contrib, 0, n);
+                }
+                continue;
+            }
+            double base = (1 - rho) * dangling / n + rho / n;
+
+            //zuerst alle neuen Raenge aus den Beitraegen der letzten Iteration
+            for (int a = 0; a < active; a++) {
+                int i = activePages[a];
+                double acc = 0.0;
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    acc += contrib[sources[k]];
+                }
+                values[a] = base + (1 - rho) * acc;
+            }
+
+            //dann uebernehmen und die Beitraege der geaenderten Seiten nachfuehren
+            double change = 0.0;
+            int stillActive = 0;
+            for (int a = 0; a < active; a++) {
+                int i = activePages[a];
+                double v = values[a];
+                double d = Math.abs(v - p[i]);
+                change += d;
+                int deg = g.offsets[i + 1] - g.offsets[i];
+                if (deg == 0) {
+                    dangling += v - p[i];
+                } else {
+                    contrib[i] = v / deg;
+                }
+                p[i] = v;
+                if (d > freeze * v) {
+                    activePages[stillActive++] = i;
+                }
+            }
+            updates += active;
+            active = stillActive;
+            iter++;
+
+            //aktive Seiten konvergiert: naechste Iteration prueft alle
+            check = change <= tol || active == 0;
+        }
+
+        normalize(p);
+        return new Result(p, iter, residual, residual <= tol, updates);
+    }
+
+    //Potenzmethode ab dem normierten Startvektor p
+    static Result iterate(LinkGraph g, double rho, double tol, int maxIter, double[] p) {
+        int n = g.size();
+        LinkGraph in = g.reverse();
+        double[] contrib = new double[n];
+        double[] pNew = new double[n];
+
+        int iter = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iter < maxIter && residual > tol) {
+            double dangling = contributions(g, p, contrib, 0, n);
+            double base = (1 - rho) * dangling / n + rho / n;
+            residual = pull(in, contrib, p, pNew, base, 1 - rho, 0, n);
+
+            double[] tmp = p;
+            p = pNew;
+            pNew = tmp;
+            iter++;
+        }
+
+        normalize(p);
+        return new Result(p, iter, residual, residual <= tol);
+    }
+
+    /**
+     * Wie rank(g, rho, tol, maxIter), aber mit threads Threads. Die Seiten
+     * werden in zusammenhaengende Bereiche mit etwa gleich vielen
+     * eingehenden Links aufgeteilt. Jeder Thread berechnet nur die neuen
+     * Raenge seines Bereichs aus den Beitraegen aller Seiten (pull), es
+     * schreibt also nie ein Thread in den Bereich eines anderen und es werden
+     * keine atomaren Operationen benoetigt. Residuum und Rang der Seiten ohne
+     * Links werden pro Thread in einem eigenen Feld gesammelt und nach jeder
+     * Phase aufsummiert. Diese Summen entstehen in anderer Reihenfolge als bei
+     * rank, die Raenge stimmen daher nur bis auf Rundungsfehler ueberein.
+     */
+    public static Result rankParallel(LinkGraph g, double rho, double tol, int maxIter, int threads) {
+        int n = g.size();
+        double[] start = new double[n];
+        Arrays.fill(start, 1.0 / n);
+
+        LinkGraph in = g.reverse();
+        int[] bounds = partition(in, threads);
+        int parts = bounds.length - 1;
+
+        ExecutorService pool = Executors.newFixedThreadPool(parts);
+        try {
+            double[][] vectors = { start, new double[n] };
+            double[] contrib = new double[n];
+            double[] partial = new double[parts];
+
+            List<Callable<Void>> contribTasks = new ArrayList<Callable<Void>>();
+            List<Callable<Void>> pullTasks = new ArrayList<Callable<Void>>();
+            double[] shared = new double[2];
+            for (int t = 0; t < parts; t++) {
+                final int part = t;
+                final int from = bounds[t];
+                final int to = bounds[t + 1];
+                contribTasks.add(() -> {
+                    partial[part] = contributions(g, vectors[0], contrib, from, to);
+                    return null;
+                });
+                pullTasks.add(() -> {
+                    partial[part] = pull(in, contrib, vectors[0], vectors[1],
+                            shared[0], shared[1], from, to);
+                    return null;
+                });
+            }
+
+            int iter = 0;
+            double residual = Double.POSITIVE_INFINITY;
+            while (iter < maxIter && residual > tol) {
+                runAll(pool, contribTasks);
+                double dangling = sum(partial);
+
+                shared[0] = (1 - rho) * dangling / n + rho / n;
+                shared[1] = 1 - rho;
+                runAll(pool, pullTasks);
+                residual = sum(partial);
+
+                double[] tmp = vectors[0];
+                vectors[0] = vectors[1];
+                vectors[1] = tmp;
+                iter++;
+            }
+
+            double[] p = vectors[0];
+            normalize(p);
+            return new Result(p, iter, residual, residual <= tol);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Teilt 0..n in hoechstens parts Bereiche, so dass jeder etwa gleich viele
+     * Seiten plus eingehende Links enthaelt. Liefert die Bereichsgrenzen.
+     */
+    static int[] partition(LinkGraph in, int parts) {
+        int n = in.size();
+        parts = Math.max(1, Math.min(parts, n));
+        long total = (long) n + in.edgeCount();
+
+        int[] bounds = new int[parts + 1];
+        for (int t = 1; t < parts; t++) {
+            long target = total * t / parts;
+
+            //kleinstes i mit i + offsets[i] >= target
+            int lo = bounds[t - 1], hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (mid + (long) in.offsets[mid] < target) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            bounds[t] = lo;
+        }
+        bounds[parts] = n;
+        return bounds;
+    }
+
+    private static void runAll(ExecutorService pool, List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("PageRank-Berechnung unterbrochen", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("PageRank-Berechnung fehlgeschlagen", e.getCause());
+        }
+    }
+
+    private static double sum(double[] values) {
+        double s = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            s += values[i];
+        }
+        return s;
+    }
+
+    /**
+     * contrib[j] = p[j]/outDeg(j) fuer from <= j < to. Gibt die Summe der
+     * Raenge der Seiten ohne ausgehende Links zurueck.
+     */
+    static double contributions(LinkGraph g, double[] p, double[] contrib, int from, int to) {
+        double dangling = 0.0;
+        for (int j = from; j < to; j++) {
+            int deg = g.offsets[j + 1] - g.offsets[j];
+            if (deg == 0) {
+                dangling += p[j];
+                contrib[j] = 0.0;
+            } else {
+                contrib[j] = p[j] / deg;
+            }
+        }
+        return dangling;
+    }
+
+    /**
+     * pNew[i] = base + damping * (Summe der contrib der Seiten, die auf i
+     * verlinken) fuer from <= i < to. Gibt die Summe von |pNew[i] - p[i]|
+     * zurueck.
+     */
+    static double pull(LinkGraph in, double[] contrib, double[] p, double[] pNew,
+            double base, double damping, int from, int to) {
+        int[] offsets = in.offsets;
+        int[] sources = in.targets;
+        double residual = 0.0;
+        for (int i = from; i < to; i++) {
+            double acc = 0.0;
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                acc += contrib[sources[k]];
+            }
+            double v = base + damping * acc;
+            residual += Math.abs(v - p[i]);
+            pNew[i] = v;
+        }
+        return residual;
+    }
+
+    //Normierung auf Summe 1
+    static void normalize(double[] p) {
+        double lambda = 0.0;
+        for (int i = 0; i < p.length; i++) {
+            lambda += p[i];
+        }
+        for (int i = 0; i < p.length; i++) {
+            p[i] = p[i] / lambda;
+        }
+    }
+}
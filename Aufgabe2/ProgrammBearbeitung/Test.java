@@ -20,7 +20,9 @@ public class Test {
 
 		boolean test_gauss = true;
 		boolean test_pagerank =false;
+		boolean test_sparse_pagerank = true;
 		boolean test_crawler = false;
+		boolean test_local_crawl = true;
 
 		double b[] = { 34, 12 , -6 , 4};
 		double C[][] = { { 1, 4 , 5 , 0 }, { 3, 2 , 4 , 7 } ,{ 6, 2 , 0 , 3}, { 1, 0 , 0 , 44} }; //reguläre
@@ -63,6 +65,18 @@ public class Test {
 				Util.printVector(xC);
 			}
 
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode factor");
+			x = Gauss.factor(C).solve(b);
+			if (Util.vectorCompare(Gauss.matrixVectorMult(C, x), b)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(Gauss.matrixVectorMult(C, x));
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(b);
+			}
+
 			System.out
 					.println("  primitiver und unvollstaendiger Test der Methode solveSing");
 			x = Gauss.solveSing(A);
@@ -80,6 +94,341 @@ public class Test {
 				System.out.println("            richtiges Ergebnis:");
 				Util.printVector(xA);
 			}
+
+			/* Zufallsmatrix ueber mehrere Bloecke, Vergleich mit Gauss.factor */
+			java.util.Random rnd = new java.util.Random(2);
+			double M[][] = new double[200][200];
+			double bM[] = new double[200];
+			for (int i = 0; i < M.length; i++) {
+				for (int j = 0; j < M.length; j++)
+					M[i][j] = rnd.nextDouble() - 0.5;
+				bM[i] = rnd.nextDouble() - 0.5;
+			}
+			double eps = Util.eps;
+			Util.eps = 1E-9;
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode factorBlocked");
+			x = Gauss.factorBlocked(M).solve(bM);
+			double xM[] = Gauss.factor(M).solve(bM);
+			if (java.util.Arrays.equals(Gauss.factorBlocked(M).getPermutation(),
+					Gauss.factor(M).getPermutation()) && Util.vectorCompare(x, xM)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(x);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(xM);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methoden solveParallel und solveSingParallel");
+			/* gross genug, dass die Elimination ueber viele Spalten parallel laeuft */
+			double P[][] = new double[400][400];
+			double bP[] = new double[400];
+			for (int i = 0; i < P.length; i++) {
+				for (int j = 0; j < P.length; j++)
+					P[i][j] = rnd.nextDouble() - 0.5;
+				bP[i] = rnd.nextDouble() - 0.5;
+			}
+			x = Gauss.solveParallel(P, bP);
+			double xP[] = Gauss.solve(P, bP);
+			boolean parallelSame = java.util.Arrays.equals(x, xP);
+			/* singulaer: letzte Zeile = Summe der ersten beiden */
+			double PS[][] = new double[P.length][];
+			for (int i = 0; i < P.length; i++)
+				PS[i] = P[i].clone();
+			for (int j = 0; j < P.length; j++)
+				PS[P.length - 1][j] = P[0][j] + P[1][j];
+			double kernel[] = Gauss.solveSingParallel(PS);
+			parallelSame &= java.util.Arrays.equals(kernel, Gauss.solveSing(PS));
+			double residualPS = 0, normKernel = 0;
+			double PSk[] = Gauss.matrixVectorMult(PS, kernel);
+			for (int i = 0; i < P.length; i++) {
+				residualPS = Math.max(residualPS, Math.abs(PSk[i]));
+				normKernel = Math.max(normKernel, Math.abs(kernel[i]));
+			}
+			if (parallelSame && normKernel > 0 && residualPS <= 1E-9 * normKernel) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis, Residuum " + residualPS);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode solveMixed");
+			/* gut konditioniert: Nachiteration in double, nicht identisch mit der Zerlegung in double */
+			x = Gauss.solveMixed(M, bM);
+			boolean refined = Util.vectorCompare(x, Gauss.solve(M, bM))
+					&& !java.util.Arrays.equals(x, xM);
+			/* Hilbert-Matrix 12 x 12: Nachiteration konvergiert nicht, Rueckfall auf factor */
+			double H[][] = new double[12][12];
+			double bH[] = new double[12];
+			for (int i = 0; i < H.length; i++) {
+				for (int j = 0; j < H.length; j++)
+					H[i][j] = 1.0 / (i + j + 1);
+				bH[i] = 1.0;
+			}
+			double xH[] = Gauss.factor(H).solve(bH);
+			if (refined && java.util.Arrays.equals(Gauss.solveMixed(H, bH), xH)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(x);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(xM);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse TiledMatrix");
+			java.io.File tiled = java.io.File.createTempFile("tiled", ".bin");
+			tiled.deleteOnExit();
+			TiledMatrix T = TiledMatrix.fromArray(tiled.getPath(), M, 64);
+			T.factor();
+			T.close();
+			/* Zerlegung samt Vertauschungen muss nach dem Oeffnen verwendbar sein */
+			T = TiledMatrix.open(tiled.getPath());
+			x = T.isFactored() ? T.solve(bM) : new double[0];
+			T.close();
+			if (Util.vectorCompare(x, xM)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(x);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(xM);
+			}
+
+			/* symmetrisch positiv definit: M^T*M + n*I, symmetrisch indefinit: M + M^T */
+			double S[][] = new double[M.length][M.length];
+			double Q[][] = new double[M.length][M.length];
+			for (int i = 0; i < M.length; i++) {
+				for (int j = 0; j < M.length; j++) {
+					for (int k = 0; k < M.length; k++)
+						S[i][j] += M[k][i] * M[k][j];
+					Q[i][j] = M[i][j] + M[j][i];
+				}
+				S[i][i] += M.length;
+			}
+			/* erzwingt einen 2x2-Block in LDLT */
+			Q[0][0] = 0;
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse Cholesky");
+			x = Cholesky.factor(S).solve(bM);
+			double xS[] = Gauss.factor(S).solve(bM);
+			boolean rejected = false;
+			try {
+				Cholesky.factor(Q);
+			} catch (IllegalArgumentException e) {
+				rejected = true;
+			}
+			if (rejected && Util.vectorCompare(x, xS)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(x);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(xS);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse LDLT");
+			x = LDLT.factor(Q).solve(bM);
+			double xQ[] = Gauss.factor(Q).solve(bM);
+			if (Util.vectorCompare(x, xQ)
+					&& Util.vectorCompare(LDLT.factor(S).solve(bM), xS)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(x);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(xQ);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse IterativeSolver");
+			/* symmetrisch und strikt diagonaldominant, also auch positiv definit */
+			double W[][] = new double[100][100];
+			double bW[] = new double[100];
+			for (int i = 0; i < W.length; i++) {
+				for (int j = 0; j < i; j++)
+					W[i][j] = W[j][i] = rnd.nextDouble() - 0.5;
+				bW[i] = rnd.nextDouble() - 0.5;
+			}
+			for (int i = 0; i < W.length; i++) {
+				for (int j = 0; j < W.length; j++)
+					W[i][i] += Math.abs(W[i][j]);
+				W[i][i] += 1;
+			}
+			/* unsymmetrisch, gut konditioniert */
+			double N[][] = new double[M.length][];
+			for (int i = 0; i < M.length; i++) {
+				N[i] = M[i].clone();
+				N[i][i] += 10;
+			}
+			DenseOperator opW = new DenseOperator(W);
+			DenseOperator opN = new DenseOperator(N);
+			double xW[] = Gauss.solve(W, bW);
+			double xN[] = Gauss.solve(N, bM);
+			double x0[] = new double[W.length];
+			java.util.Arrays.fill(x0, 1.0);
+			IterativeSolver.Result solved[] = {
+					IterativeSolver.cg(opW, bW, x0, 1E-12, 1000),
+					IterativeSolver.bicgstab(opW, bW, x0, 1E-12, 1000),
+					IterativeSolver.gmres(opW, bW, x0, 20, 1E-12, 1000),
+					IterativeSolver.jacobi(opW, bW, x0, 1E-12, 1000),
+					IterativeSolver.gaussSeidel(opW, bW, x0, 1E-12, 1000),
+					IterativeSolver.bicgstab(opN, bM, null, 1E-12, 1000),
+					IterativeSolver.gmres(opN, bM, null, 30, 1E-12, 1000) };
+			double r0[] = new double[W.length];
+			opW.apply(x0, r0);
+			double rr0 = 0, bb = 0;
+			for (int i = 0; i < W.length; i++) {
+				rr0 += (bW[i] - r0[i]) * (bW[i] - r0[i]);
+				bb += bW[i] * bW[i];
+			}
+			boolean iterative = Math.abs(solved[0].residualHistory[0] - Math.sqrt(rr0 / bb)) < 1E-12
+					&& x0[0] == 1.0;
+			for (int h = 1; h < solved[0].residualHistory.length; h++)
+				iterative &= solved[0].residualHistory[h] <= solved[0].residualHistory[h - 1];
+			for (int k = 0; k < solved.length; k++) {
+				iterative &= solved[k].converged && solved[k].iterations > 0
+						&& solved[k].residual() <= 1E-12
+						&& solved[k].residualHistory.length == solved[k].iterations + 1
+						&& Util.vectorCompare(solved[k].x, k < 5 ? xW : xN);
+			}
+			/* b = 0: Startvektor 0 ist schon die Loesung */
+			double zero[] = new double[W.length];
+			IterativeSolver.Result trivial[] = {
+					IterativeSolver.cg(opW, zero, null, 1E-12, 1000),
+					IterativeSolver.bicgstab(opW, zero, null, 1E-12, 1000),
+					IterativeSolver.gmres(opW, zero, null, 20, 1E-12, 1000),
+					IterativeSolver.jacobi(opW, zero, null, 1E-12, 1000),
+					IterativeSolver.gaussSeidel(opW, zero, null, 1E-12, 1000) };
+			for (int k = 0; k < trivial.length; k++)
+				iterative &= trivial[k].converged && trivial[k].iterations == 0
+						&& java.util.Arrays.equals(trivial[k].x, zero);
+			if (iterative) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				for (int k = 0; k < solved.length; k++)
+					System.out.println("    " + solved[k].iterations + " Iterationen, Residuum "
+							+ solved[k].residual());
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse SparseMatrix");
+			/* 1000 x 1500, etwa 20 Eintraege pro Zeile, Zeilen 0 und 500 voll, einige Positionen doppelt */
+			int sr = 1000, sc = 1500;
+			double D[][] = new double[sr][sc];
+			int tRow[] = new int[40 * sr];
+			int tCol[] = new int[40 * sr];
+			double tVal[] = new double[40 * sr];
+			int tc = 0;
+			for (int i = 0; i < sr; i++) {
+				int cnt = i % 500 == 0 ? sc : rnd.nextInt(40);
+				for (int k = 0; k < cnt; k++) {
+					int j = i % 500 == 0 ? k : rnd.nextInt(sc);
+					double v = rnd.nextDouble() - 0.5;
+					if (tc == tRow.length) {
+						tRow = java.util.Arrays.copyOf(tRow, 2 * tc);
+						tCol = java.util.Arrays.copyOf(tCol, 2 * tc);
+						tVal = java.util.Arrays.copyOf(tVal, 2 * tc);
+					}
+					tRow[tc] = i;
+					tCol[tc] = j;
+					tVal[tc++] = v;
+					D[i][j] += v;
+				}
+			}
+			SparseMatrix sm = SparseMatrix.fromTriplets(sr, sc, tRow, tCol, tVal, tc);
+			double xs[] = new double[sc];
+			double xt[] = new double[sr];
+			for (int j = 0; j < sc; j++)
+				xs[j] = rnd.nextDouble() - 0.5;
+			for (int i = 0; i < sr; i++)
+				xt[i] = rnd.nextDouble() - 0.5;
+			double yD[] = new double[sr];
+			double yT[] = new double[sc];
+			int distinct = 0;
+			for (int i = 0; i < sr; i++)
+				for (int j = 0; j < sc; j++) {
+					yD[i] += D[i][j] * xs[j];
+					yT[j] += D[i][j] * xt[i];
+					if (D[i][j] != 0)
+						distinct++;
+				}
+			double yP[] = new double[sr];
+			sm.multiplyParallel(xs, yP);
+			SparseMatrix smT = sm.transpose();
+			SparseMatrix back = sm.toCSC().toCSR();
+			boolean sparse = sm.rows() == sr && sm.cols() == sc && sm.nonZeros() == distinct
+					&& sm.nonZeros() > 16384 && smT.rows() == sc && smT.cols() == sr
+					&& Util.vectorCompare(sm.multiply(xs), yD)
+					&& java.util.Arrays.equals(yP, sm.multiply(xs))
+					&& Util.vectorCompare(sm.transposeMultiply(xt), yT)
+					&& Util.vectorCompare(smT.multiply(xt), yT)
+					&& Util.vectorCompare(sm.toCSC().multiply(xs), yD);
+			for (int i = 0; i < sr; i++)
+				for (int j = 0; j < sc; j++)
+					sparse &= sm.get(i, j) == D[i][j] || Math.abs(sm.get(i, j) - D[i][j]) < 1E-15;
+			for (int i = 0; i < sr; i++)
+				for (int j = 0; j < sc; j++)
+					sparse &= smT.get(j, i) == sm.get(i, j) && back.get(i, j) == sm.get(i, j);
+			if (sparse) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse BatchGauss");
+			/* System 3 braucht einen Zeilentausch, System 5 ist singulaer */
+			int bn = 6, bc = 9;
+			double batchA[] = new double[bn * bn * bc];
+			double batchB[] = new double[bn * bc];
+			double systems[][][] = new double[bc][bn][bn];
+			double rhs[][] = new double[bc][bn];
+			for (int t = 0; t < bc; t++) {
+				for (int i = 0; i < bn; i++) {
+					for (int j = 0; j < bn; j++)
+						systems[t][i][j] = rnd.nextDouble() - 0.5;
+					rhs[t][i] = rnd.nextDouble() - 0.5;
+				}
+				BatchGauss.pack(bn, bc, t, systems[t], rhs[t], batchA, batchB);
+			}
+			systems[3][0][0] = 0;
+			systems[5][1] = systems[5][0].clone();
+			BatchGauss.pack(bn, bc, 3, systems[3], rhs[3], batchA, batchB);
+			BatchGauss.pack(bn, bc, 5, systems[5], rhs[5], batchA, batchB);
+			BatchGauss.solve(bn, bc, batchA, batchB);
+			boolean batched = true;
+			double xb[] = new double[bn];
+			for (int t = 0; t < bc; t++) {
+				BatchGauss.unpack(bn, bc, t, batchB, xb);
+				if (t == 5) {
+					boolean finite = true;
+					for (int i = 0; i < bn; i++)
+						finite &= Double.isFinite(xb[i]);
+					batched &= !finite;
+				} else {
+					batched &= Util.vectorCompare(xb, Gauss.solve(systems[t], rhs[t]));
+				}
+			}
+			/* n*n*count = 2^32 passt nicht in int, darf die Groessenpruefung nicht umgehen */
+			boolean tooSmall = false;
+			try {
+				BatchGauss.solve(2048, 1024, new double[1], new double[2048 * 1024]);
+			} catch (IllegalArgumentException e) {
+				tooSmall = true;
+			}
+			if (batched && tooSmall) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+			Util.eps = eps;
 		}
 
 		/******************************/
@@ -130,6 +479,445 @@ public class Test {
 			}
 		}
 
+		/******************************/
+		/* Test der Klasse SparsePageRank */
+		/******************************/
+		if (test_sparse_pagerank) {
+			System.out.println("-----------------------------------------");
+			System.out
+					.println("primitiver und unvollstaendiger Test der Klasse SparsePageRank");
+
+			/* Linkmatrix aus webseiten/irgendwo.txt */
+			int L[][] = { { 1, 1 }, { 1, 1 } };
+			double p[] = SparsePageRank.rank(LinkGraph.fromLinkMatrix(L), 0.15);
+			double p0[] = { 0.5, 0.5 };
+			if (Util.vectorCompare(p, p0)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(p);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(p0);
+			}
+
+			/* Zufallsgraph: 100 Hosts mit je 30 Seiten, Links meist innerhalb des Hosts, einige Seiten ohne Links */
+			java.util.Random rnd = new java.util.Random(3);
+			int gn = 3000;
+			int gFrom[] = new int[8 * gn];
+			int gTo[] = new int[8 * gn];
+			int gm = 0;
+			String gu[] = new String[gn];
+			for (int i = 0; i < gn; i++) {
+				gu[i] = "http://h" + (i / 30) + ".de/" + i;
+				int deg = rnd.nextInt(10) < 1 ? 0 : rnd.nextInt(8) + 1;
+				for (int k = 0; k < deg; k++) {
+					gFrom[gm] = i;
+					gTo[gm++] = rnd.nextInt(5) < 4 ? (i / 30) * 30 + rnd.nextInt(30) : rnd.nextInt(gn);
+				}
+			}
+			LinkGraph rg = LinkGraph.fromEdges(gn, gFrom, gTo, gm);
+			double rp[] = SparsePageRank.rank(rg, 0.15, 1E-13, 1000).rank;
+			double eps = Util.eps;
+			Util.eps = 1E-11;
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode rankParallel");
+			p = SparsePageRank.rankParallel(rg, 0.15, 1E-13, 1000, 4).rank;
+			if (Util.vectorCompare(p, rp)
+					&& Util.vectorCompare(PageRank.rank(L, 0.15), PageRank.rankDense(L, 0.15))) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(p);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(rp);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode rankIncremental");
+			GraphDelta delta = new GraphDelta();
+			int first = gn + delta.addPages(5);
+			for (int i = 0; i < 5; i++) {
+				delta.addLink(first + i, i);
+				delta.addLink(i * 7, first + i);
+			}
+			delta.removeLink(gFrom[0], gTo[0]);
+			delta.removePage(42);
+			LinkGraph rg2 = rg.apply(delta);
+			SparsePageRank.Result inc = SparsePageRank.rankIncremental(rg, delta, rp, 0.15, 1E-13, 1000);
+			SparsePageRank.Result full = SparsePageRank.rank(rg2, 0.15, 1E-13, 1000);
+			if (inc.converged && inc.iterations <= full.iterations
+					&& Util.vectorCompare(inc.rank, full.rank)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(inc.rank);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(full.rank);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methode rankSweep");
+			double rhos[] = { 0.05, 0.15, 0.5, 0.85, 1.0 };
+			SparsePageRank.Result sweep[] = SparsePageRank.rankSweep(rg, rhos, 1E-13, 1000);
+			boolean swept = sweep.length == rhos.length;
+			for (int r = 0; r < rhos.length; r++) {
+				SparsePageRank.Result single = SparsePageRank.rank(rg, rhos[r], 1E-13, 1000);
+				if (sweep[r].iterations != single.iterations || !sweep[r].converged
+						|| !Util.vectorCompare(sweep[r].rank, single.rank)) {
+					System.out.println("    rho = " + rhos[r] + ": " + sweep[r].iterations
+							+ " statt " + single.iterations + " Iterationen");
+					swept = false;
+				}
+			}
+			/* maxIter <= 0 wird abgelehnt */
+			boolean refused = false;
+			try {
+				SparsePageRank.rankSweep(rg, rhos, 1E-13, 0);
+			} catch (IllegalArgumentException e) {
+				refused = true;
+			}
+			if (swept && refused) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Beschleunigungsverfahren");
+			SparsePageRank.Result plain = SparsePageRank.rank(rg, 0.15, 1E-13, 1000);
+			boolean accelerated = true;
+			for (SparsePageRank.Acceleration acc : SparsePageRank.Acceleration.values()) {
+				SparsePageRank.Result res = SparsePageRank.rankWithBaseline(rg, 0.15, 1E-13, 1000, acc);
+				boolean ok = res.converged && res.baselineIterations == plain.iterations
+						&& res.baselinePageUpdates == plain.pageUpdates
+						&& res.pageUpdatesSaved() == plain.pageUpdates - res.pageUpdates
+						&& Util.vectorCompare(res.rank, rp);
+				if (acc == SparsePageRank.Acceleration.NONE)
+					ok &= res.iterationsSaved() == 0 && res.pageUpdatesSaved() == 0;
+				if (!ok)
+					System.out.println("    " + acc + ": " + res.iterations + " Iterationen, "
+							+ res.pageUpdates + " Neuberechnungen");
+				accelerated &= ok;
+			}
+			if (accelerated) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse BlockRank");
+			int hosts[] = BlockRank.hostBlocks(gu);
+			/* Bloecke quer zur Seitennummerierung, damit umnummeriert werden muss */
+			int mixed[] = new int[gn];
+			for (int i = 0; i < gn; i++)
+				mixed[i] = (i * 7) % 100;
+			p = BlockRank.rank(rg, hosts, 0.15, 1E-13, 1000, 4).rank;
+			if (hosts[29] == 0 && hosts[30] == 1 && Util.vectorCompare(p, rp)
+					&& Util.vectorCompare(BlockRank.rank(rg, mixed, 0.15, 1E-13, 1000, 4).rank, rp)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(p);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(rp);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse MonteCarloPageRank");
+			/* exakt per Potenzmethode: Ruecksprung gleichmaessig auf die 30 Seiten von Host 0 */
+			int mcSeeds[] = new int[30];
+			double mcWeights[] = new double[30];
+			double pers[] = new double[gn];
+			for (int i = 0; i < 30; i++) {
+				mcSeeds[i] = i;
+				mcWeights[i] = 1.0;
+				pers[i] = 1.0 / 30;
+			}
+			for (int it = 0; it < 300; it++) {
+				double next[] = new double[gn];
+				double dangling = 0;
+				for (int v = 0; v < gn; v++) {
+					int succ[] = rg.successors(v);
+					if (succ.length == 0)
+						dangling += pers[v];
+					for (int k = 0; k < succ.length; k++)
+						next[succ[k]] += pers[v] / succ.length;
+				}
+				for (int i = 0; i < gn; i++)
+					next[i] = 0.85 * (next[i] + dangling / gn) + (i < 30 ? 0.15 / 30 : 0);
+				pers = next;
+			}
+			int walks = 200;
+			MonteCarloPageRank mc = MonteCarloPageRank.build(rg, 0.15, walks, 42);
+			double est[] = mc.estimate(mcSeeds, mcWeights);
+			MonteCarloPageRank.Result top = mc.topK(mcSeeds, 3);
+			/* Standardabweichung eines Eintrags etwa sqrt(rho * p_i / (walks * |Startseiten|)) */
+			double maxPers = 0, maxError = 0;
+			for (int i = 0; i < gn; i++) {
+				maxPers = Math.max(maxPers, pers[i]);
+				maxError = Math.max(maxError, Math.abs(est[i] - pers[i]));
+			}
+			boolean estimated = maxError <= 5 * Math.sqrt(0.15 * maxPers / (walks * 30))
+					&& top.pages.length == 3;
+			for (int k = 0; k < top.pages.length; k++) {
+				int better = 0;
+				for (int i = 0; i < gn; i++)
+					if (pers[i] > pers[top.pages[k]])
+						better++;
+				estimated &= better == k && top.scores[k] == est[top.pages[k]];
+			}
+			if (estimated) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis, Abweichung " + maxError);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse DistributedPageRank");
+			/* drei Worker-Prozesse ueber die lokale Schnittstelle */
+			p = DistributedPageRank.rank(rg, 0.15, 1E-13, 1000, 3).rank;
+			/* ein Worker, der nicht starten kann, muss sofort gemeldet werden */
+			System.out.println("    erwartete Fehlermeldung der Worker:");
+			boolean reported = false;
+			long started = System.currentTimeMillis();
+			try {
+				DistributedPageRank.rank(rg, 0.15, 1E-13, 1000, 2, "-Xmx1k");
+			} catch (java.io.IOException e) {
+				reported = System.currentTimeMillis() - started < DistributedPageRank.CONNECT_TIMEOUT;
+			}
+			if (reported && Util.vectorCompare(p, rp)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(p);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(rp);
+			}
+			Util.eps = eps;
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse GraphFile");
+			java.io.File graphFile = java.io.File.createTempFile("graph", ".bin");
+			graphFile.deleteOnExit();
+			GraphFile.write(graphFile.getPath(), rg, gu);
+			GraphFile gf = GraphFile.open(graphFile.getPath());
+			LinkGraph rg3 = gf.toLinkGraph();
+			boolean equal = gf.size() == gn && gf.edgeCount() == rg.edgeCount()
+					&& java.util.Arrays.equals(gf.urls(), gu)
+					&& java.util.Arrays.equals(rg3.offsets, rg.offsets)
+					&& java.util.Arrays.equals(rg3.targets, rg.targets);
+			for (int v = 0; v < gn; v += 97)
+				equal &= java.util.Arrays.equals(gf.successors(v), rg.successors(v));
+			gf.close();
+			/* ueber das Textformat und zurueck */
+			java.io.File graphText = java.io.File.createTempFile("graph", ".txt");
+			graphText.deleteOnExit();
+			GraphFile.toText(graphFile.getPath(), graphText.getPath());
+			GraphFile.fromText(graphText.getPath(), graphFile.getPath());
+			gf = GraphFile.open(graphFile.getPath());
+			LinkGraph rg4 = gf.toLinkGraph();
+			equal &= java.util.Arrays.equals(gf.urls(), gu)
+					&& java.util.Arrays.equals(rg4.offsets, rg.offsets)
+					&& rg4.edgeCount() == rg.edgeCount();
+			for (int v = 0; v < gn; v++)
+				for (int t : rg.successors(v))
+					equal &= rg4.hasEdge(v, t);
+			gf.close();
+			if (equal) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse LinkMatrixReader");
+			java.io.File textFile = java.io.File.createTempFile("links", ".txt");
+			textFile.deleteOnExit();
+			LinkMatrix text = new LinkMatrix();
+			text.graph = rg;
+			text.urls = gu;
+			text.write(textFile.getPath());
+			LinkMatrix dense = new LinkMatrix();
+			dense.read(textFile.getPath());
+			LinkGraph dg = LinkGraph.fromLinkMatrix(dense.L);
+			/* mehrere Stuecke, die Stueckgrenzen liegen mitten in Zeilen */
+			LinkMatrix parsed = LinkMatrixReader.read(textFile.getPath(), 4);
+			equal = java.util.Arrays.equals(parsed.urls, dense.urls)
+					&& java.util.Arrays.equals(parsed.graph.offsets, dg.offsets)
+					&& java.util.Arrays.equals(parsed.graph.targets, dg.targets)
+					&& parsed.graph.edgeCount() == rg.edgeCount();
+			if (equal) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Methoden writeEdges und readEdges");
+			java.io.File edgeFile = java.io.File.createTempFile("edges", ".txt");
+			edgeFile.deleteOnExit();
+			/* einmal aus dem Graphen, einmal aus der Matrix L geschrieben */
+			LinkMatrix edges = new LinkMatrix();
+			text.writeEdges(edgeFile.getPath());
+			edges.readEdges(edgeFile.getPath());
+			equal = edges.L == null && java.util.Arrays.equals(edges.urls, gu)
+					&& java.util.Arrays.equals(edges.graph.offsets, rg.offsets)
+					&& java.util.Arrays.equals(edges.graph.targets, rg.targets);
+			dense.writeEdges(edgeFile.getPath());
+			edges.readEdges(edgeFile.getPath());
+			equal &= java.util.Arrays.equals(edges.urls, gu)
+					&& java.util.Arrays.equals(edges.graph.offsets, dg.offsets)
+					&& java.util.Arrays.equals(edges.graph.targets, dg.targets);
+			if (equal) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse Ranking");
+			double s[] = { 0.1, 0.4, 0.2, 0.3 };
+			String u[] = { "a", "b", "c", "d" };
+			Ranking ranking = new Ranking(s, u);
+			String r[] = ranking.urls(1, 2);
+			String r0[] = { "d", "c" };
+			/* gu ist nicht lexikographisch sortiert (".../10" vor ".../2") */
+			Ranking urlRanking = new Ranking(rp, gu);
+			boolean found = urlRanking.pageOf("http://h0.de/x") == -1;
+			for (int i = 0; i < gn; i++)
+				found &= urlRanking.pageOf(gu[i]) == i;
+			if (ranking.topK(1)[0] == 1 && ranking.rankOf("a") == 3
+					&& ranking.pageOf("c") == 2 && found && Util.rankingCompare(r, r0)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printStringArray(r);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printStringArray(r0);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse UrlDictionary");
+			java.io.File dictFile = java.io.File.createTempFile("urls", ".bin");
+			dictFile.deleteOnExit();
+			UrlDictionary.build(gu).write(dictFile.getPath());
+			UrlDictionary dict = UrlDictionary.read(dictFile.getPath());
+			found = dict.size() == gn && dict.id("http://h0.de/x") == -1;
+			for (int i = 0; i < gn; i++)
+				found &= dict.id(gu[i]) == i && dict.url(i).equals(gu[i]);
+			if (found) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test der Klasse CompressedGraph");
+			int K[][] = { { 0, 1, 1, 1, 1, 0 }, { 1, 0, 1, 1, 1, 0 },
+					{ 1, 1, 0, 1, 1, 1 }, { 1, 1, 1, 0, 1, 0 },
+					{ 1, 1, 1, 1, 0, 0 }, { 0, 0, 0, 0, 0, 0 } };
+			String cu[] = { "http://f/", "http://e/", "http://d/", "http://c/",
+					"http://b/", "http://a/" };
+			LinkGraph cg = LinkGraph.fromLinkMatrix(K);
+			CompressedGraph compressed = CompressedGraph.build(cg, cu);
+			double cp[] = compressed.rank(0.15, 1E-12, 1000).rank;
+			double cp0[] = SparsePageRank.rank(cg, 0.15, 1E-12, 1000).rank;
+			boolean same = compressed.node(5) == 0 && compressed.url(0).equals("http://a/")
+					&& compressed.node("http://c/") == 2 && compressed.node("http://g/") == -1;
+			for (int v = 0; v < cg.size(); v++) {
+				int succ[] = compressed.successors(v);
+				same &= succ.length == cg.outDegree(compressed.page(v));
+				for (int k = 0; k < succ.length; k++)
+					same &= cg.hasEdge(compressed.page(v), compressed.page(succ[k]));
+			}
+			if (same && Util.vectorCompare(cp, cp0)) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis:");
+				Util.printVector(cp);
+				System.out.println("            richtiges Ergebnis:");
+				Util.printVector(cp0);
+			}
+		}
+
+		/******************************/
+		/* Test der Klasse Crawler */
+		/******************************/
+		if (test_local_crawl) {
+			System.out.println("-----------------------------------------");
+			System.out
+					.println("primitiver und unvollstaendiger Test der Klasse Crawler");
+
+			/* lokaler Server: Seite pi verlinkt auf p(2i+1), p(2i+2), p(i-1) und nach aussen */
+			final int pageNum = 12;
+			com.sun.net.httpserver.HttpServer server = com.sun.net.httpserver.HttpServer.create(
+					new java.net.InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), 0), 0);
+			server.createContext("/", exchange -> {
+				int i = Integer.parseInt(exchange.getRequestURI().getPath().substring(2));
+				String html = "<html><body><a href=\"p" + (2 * i + 1) % pageNum + "\">a</a> "
+						+ "<a href=\"p" + (2 * i + 2) % pageNum + "\">b</a> "
+						+ "<a href=\"/p" + (i + pageNum - 1) % pageNum + "\">c</a> "
+						+ "<a href=\"http://example.invalid/\">d</a></body></html>";
+				byte body[] = html.getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", "text/html");
+				exchange.sendResponseHeaders(200, body.length);
+				try (java.io.OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			java.util.concurrent.ExecutorService serverThreads = java.util.concurrent.Executors
+					.newFixedThreadPool(4);
+			server.setExecutor(serverThreads);
+			server.start();
+			String base = "http://" + server.getAddress().getHostString() + ":"
+					+ server.getAddress().getPort() + "/";
+
+			/* Links als "von -> nach", unabhaengig von der Nummerierung der Seiten */
+			java.util.Set<String> expected = new java.util.HashSet<String>();
+			for (int i = 0; i < pageNum; i++) {
+				String from = base + "p" + i;
+				expected.add(from + " -> " + from);
+				expected.add(from + " -> " + base + "p" + (2 * i + 1) % pageNum);
+				expected.add(from + " -> " + base + "p" + (2 * i + 2) % pageNum);
+				expected.add(from + " -> " + base + "p" + (i + pageNum - 1) % pageNum);
+			}
+
+			System.out
+					.println("  primitiver und unvollstaendiger Test mit 1 und 4 Threads");
+			System.out.println("    besuchte Seiten:");
+			boolean sameLinks = true;
+			int concurrency[] = { 1, 4 };
+			for (int c : concurrency) {
+				java.io.File crawlFile = java.io.File.createTempFile("crawl", ".txt");
+				crawlFile.deleteOnExit();
+				Crawler crawler = new Crawler(crawlFile.getPath(),
+						new String[] { base + "p0" }, 20, base, c);
+				long started = System.currentTimeMillis();
+				while (!crawler.hasFinished()
+						&& System.currentTimeMillis() - started < 60000)
+					Thread.sleep(10);
+				java.util.Set<String> links = new java.util.HashSet<String>();
+				if (crawler.hasFinished()) {
+					LinkMatrix crawled = new LinkMatrix();
+					crawled.read(crawlFile.getPath());
+					for (int i = 0; i < crawled.L.length; i++)
+						for (int j = 0; j < crawled.L.length; j++)
+							if (crawled.L[i][j] == 1)
+								links.add(crawled.urls[j] + " -> " + crawled.urls[i]);
+				}
+				sameLinks &= links.equals(expected);
+			}
+			server.stop(0);
+			serverThreads.shutdown();
+			if (sameLinks) {
+				System.out.println("    Richtiges Ergebnis");
+			} else {
+				System.out.println("    FEHLER: falsches Ergebnis");
+			}
+		}
+
 		if (test_crawler) {
 			(new GUI()).setVisible(true);
 		}
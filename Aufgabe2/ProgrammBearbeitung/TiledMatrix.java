@@ -0,0 +1,388 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Eine n x n Matrix, die nicht im Heap, sondern in einer Datei liegt. Die
+ * Matrix ist in quadratische Kacheln (tiles) der Groesse tile x tile
+ * aufgeteilt, jede Kachel steht zeilenweise zusammenhaengend in der Datei und
+ * wird bei Bedarf mit FileChannel.map eingeblendet. Der Heap haelt immer nur
+ * einige Kacheln gleichzeitig, den Rest verwaltet das Betriebssystem.
+ *
+ * Ist n kein Vielfaches von tile, werden die Randkacheln mit Nullen
+ * aufgefuellt.
+ *
+ * Dateiaufbau: int MAGIC, int n, int tile, int factored, danach die Kacheln
+ * zeilenweise (Kachel (bi,bj) an Position bi * tiles + bj). Nach factor folgen
+ * hinter den Kacheln die n Zeilenvertauschungen (int), factored ist dann 1.
+ * Alle Werte stehen big-endian in der Datei, damit sie auf jedem Rechner
+ * gleich gelesen werden.
+ */
+public class TiledMatrix implements Closeable {
+
+    public static final int DEFAULT_TILE = 512;
+
+    //Kopf, Kacheln und Vertauschungen einheitlich big-endian (wie RandomAccessFile.writeInt);
+    //Version 2, Dateien der Version 1 standen in der Byte-Reihenfolge des Rechners
+    private static final int MAGIC = 0x4e505432;
+    private static final ByteOrder ORDER = ByteOrder.BIG_ENDIAN;
+    private static final int HEADER_BYTES = 16;
+
+    private final int n, tile, tiles;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final DoubleBuffer[] mapped;
+
+    //Zeilenvertauschungen der LU-Zerlegung: in Schritt k wurde Zeile k mit ipiv[k] getauscht
+    private int[] ipiv;
+
+    private TiledMatrix(RandomAccessFile file, int n, int tile) {
+        this.file = file;
+        this.channel = file.getChannel();
+        this.n = n;
+        this.tile = tile;
+        this.tiles = (n + tile - 1) / tile;
+        this.mapped = new DoubleBuffer[tiles * tiles];
+    }
+
+    /**
+     * Legt eine neue, mit Nullen gefuellte Matrix in der Datei filename an.
+     * Eine vorhandene Datei wird ueberschrieben.
+     */
+    public static TiledMatrix create(String filename, int n, int tile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        TiledMatrix m = new TiledMatrix(file, n, tile);
+        file.setLength(0);
+        file.setLength(HEADER_BYTES + (long) m.tiles * m.tiles * tile * tile * 8);
+        file.writeInt(MAGIC);
+        file.writeInt(n);
+        file.writeInt(tile);
+        file.writeInt(0);
+        return m;
+    }
+
+    /**
+     * Oeffnet eine mit create angelegte Matrix. Wurde sie bereits zerlegt (s.
+     * factor), werden die Zeilenvertauschungen mitgelesen und solve kann
+     * direkt verwendet werden.
+     */
+    public static TiledMatrix open(String filename) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(filename, "rw");
+        if (file.readInt() != MAGIC) {
+            file.close();
+            throw new IOException(filename + " ist keine TiledMatrix-Datei");
+        }
+        int n = file.readInt();
+        int tile = file.readInt();
+        int factored = file.readInt();
+        TiledMatrix m = new TiledMatrix(file, n, tile);
+        if (factored != 0) {
+            if (file.length() < m.pivotOffset() + 4L * n) {
+                m.close();
+                throw new IOException(filename + ": Zeilenvertauschungen fehlen");
+            }
+            int[] piv = new int[n];
+            m.channel.map(FileChannel.MapMode.READ_ONLY, m.pivotOffset(), 4L * n)
+                    .order(ORDER).asIntBuffer().get(piv);
+            m.ipiv = piv;
+        }
+        return m;
+    }
+
+    /**
+     * Schreibt die Matrix A in eine neue Datei.
+     */
+    public static TiledMatrix fromArray(String filename, double[][] A, int tile) throws IOException {
+        TiledMatrix m = create(filename, A.length, tile);
+        double[] buf = new double[tile * tile];
+        for (int bi = 0; bi < m.tiles; bi++) {
+            for (int bj = 0; bj < m.tiles; bj++) {
+                Arrays.fill(buf, 0.0);
+                for (int r = 0; r < tile && bi * tile + r < m.n; r++) {
+                    for (int c = 0; c < tile && bj * tile + c < m.n; c++) {
+                        buf[r * tile + c] = A[bi * tile + r][bj * tile + c];
+                    }
+                }
+                m.store(bi, bj, buf);
+            }
+        }
+        return m;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public double get(int i, int j) {
+        return tile(i / tile, j / tile).get((i % tile) * tile + j % tile);
+    }
+
+    public void set(int i, int j, double value) {
+        tile(i / tile, j / tile).put((i % tile) * tile + j % tile, value);
+    }
+
+    public boolean isFactored() {
+        return ipiv != null;
+    }
+
+    /**
+     * Zerlegt die Matrix in-place in P*A = L*U (Spaltenpivotisierung, wie
+     * Gauss.factor). Die Datei enthaelt danach L und U sowie die
+     * Zeilenvertauschungen, die Matrix selbst ist ueberschrieben.
+     *
+     * Es wird jeweils eine Kachelspalte als Panel zerlegt. Danach werden die
+     * Vertauschungen auf die uebrigen Kachelspalten angewandt, die Kacheln von
+     * U berechnet und die Restmatrix kachelweise aktualisiert
+     * (A(ib,jb) -= L(ib,kb) * U(kb,jb)). Im Heap liegen dafuer nur drei
+     * Kacheln.
+     */
+    public void factor() throws IOException {
+        if (ipiv != null) {
+            return;
+        }
+        int[] piv = new int[n];
+        int T = tile;
+        double[] l = new double[T * T];
+        double[] u = new double[T * T];
+        double[] a = new double[T * T];
+
+        for (int kb = 0; kb < tiles; kb++) {
+            int k0 = kb * T;
+            int kEnd = Math.min(k0 + T, n);
+
+            factorPanel(kb, k0, kEnd, piv);
+
+            //Vertauschungen auf alle anderen Kachelspalten anwenden
+            for (int jb = 0; jb < tiles; jb++) {
+                if (jb != kb) {
+                    for (int k = k0; k < kEnd; k++) {
+                        if (piv[k] != k) {
+                            swapRows(jb, k, piv[k]);
+                        }
+                    }
+                }
+            }
+
+            //U(kb,jb) = L(kb,kb)^-1 * A(kb,jb)
+            load(kb, kb, l);
+            for (int jb = kb + 1; jb < tiles; jb++) {
+                load(kb, jb, u);
+                for (int k = 0; k < kEnd - k0; k++) {
+                    for (int r = k + 1; r < kEnd - k0; r++) {
+                        double f = l[r * T + k];
+                        if (f != 0) {
+                            for (int c = 0; c < T; c++) {
+                                u[r * T + c] -= f * u[k * T + c];
+                            }
+                        }
+                    }
+                }
+                store(kb, jb, u);
+            }
+
+            //A(ib,jb) -= L(ib,kb) * U(kb,jb)
+            for (int ib = kb + 1; ib < tiles; ib++) {
+                load(ib, kb, l);
+                for (int jb = kb + 1; jb < tiles; jb++) {
+                    load(kb, jb, u);
+                    load(ib, jb, a);
+                    for (int r = 0; r < T; r++) {
+                        for (int k = 0; k < T; k++) {
+                            double f = l[r * T + k];
+                            if (f != 0) {
+                                for (int c = 0; c < T; c++) {
+                                    a[r * T + c] -= f * u[k * T + c];
+                                }
+                            }
+                        }
+                    }
+                    store(ib, jb, a);
+                }
+            }
+        }
+
+        //erst die Vertauschungen, dann die Markierung schreiben
+        IntBuffer pivots = channel.map(FileChannel.MapMode.READ_WRITE, pivotOffset(), 4L * n)
+                .order(ORDER).asIntBuffer();
+        pivots.put(piv);
+        ipiv = piv;
+        file.seek(12);
+        file.writeInt(1);
+    }
+
+    //Position der Zeilenvertauschungen hinter der letzten Kachel
+    private long pivotOffset() {
+        return HEADER_BYTES + (long) tiles * tiles * tile * tile * 8;
+    }
+
+    //unblockierte Elimination der Spalten k0..kEnd-1 in Kachelspalte kb
+    private void factorPanel(int kb, int k0, int kEnd, int[] piv) {
+        int T = tile;
+        double[] pivotRow = new double[T];
+
+        for (int k = k0; k < kEnd; k++) {
+            int c = k - k0;
+
+            //betragsgroesstes Pivot-Element in Spalte k suchen
+            int p = k;
+            double biggestValue = Math.abs(get(k, k));
+            for (int i = k + 1; i < n; i++) {
+                double v = Math.abs(tile(i / T, kb).get((i % T) * T + c));
+                if (v > biggestValue) {
+                    biggestValue = v;
+                    p = i;
+                }
+            }
+            piv[k] = p;
+            if (p != k) {
+                swapRows(kb, k, p);
+            }
+
+            DoubleBuffer pivotTile = tile(k / T, kb);
+            for (int j = 0; j < T; j++) {
+                pivotRow[j] = pivotTile.get((k % T) * T + j);
+            }
+
+            for (int i = k + 1; i < n; i++) {
+                DoubleBuffer t = tile(i / T, kb);
+                int ri = (i % T) * T;
+                double v = t.get(ri + c);
+                if (v != 0) {
+                    double lineFactor = v / pivotRow[c];
+                    t.put(ri + c, lineFactor);
+                    for (int j = c + 1; j < kEnd - k0; j++) {
+                        t.put(ri + j, t.get(ri + j) - lineFactor * pivotRow[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Loest A*x=b mit der Zerlegung aus factor. Vorwaerts- und
+     * Rueckwaertssubstitution laufen ebenfalls kachelweise, b und x liegen im
+     * Heap. b wird nicht veraendert.
+     */
+    public double[] solve(double[] b) {
+        if (ipiv == null) {
+            throw new IllegalStateException("Matrix ist noch nicht zerlegt (factor)");
+        }
+        int T = tile;
+        double[] x = b.clone();
+        for (int k = 0; k < n; k++) {
+            if (ipiv[k] != k) {
+                double tmp = x[k];
+                x[k] = x[ipiv[k]];
+                x[ipiv[k]] = tmp;
+            }
+        }
+
+        double[] t = new double[T * T];
+
+        //L*y = P*b
+        for (int ib = 0; ib < tiles; ib++) {
+            int i0 = ib * T;
+            int iEnd = Math.min(i0 + T, n);
+            for (int jb = 0; jb < ib; jb++) {
+                load(ib, jb, t);
+                int j0 = jb * T;
+                for (int i = i0; i < iEnd; i++) {
+                    double acc = 0.0;
+                    for (int c = 0; c < T; c++) {
+                        acc += t[(i - i0) * T + c] * x[j0 + c];
+                    }
+                    x[i] -= acc;
+                }
+            }
+            load(ib, ib, t);
+            for (int i = i0; i < iEnd; i++) {
+                double acc = 0.0;
+                for (int j = i0; j < i; j++) {
+                    acc += t[(i - i0) * T + (j - i0)] * x[j];
+                }
+                x[i] -= acc;
+            }
+        }
+
+        //U*x = y
+        for (int ib = tiles - 1; ib >= 0; ib--) {
+            int i0 = ib * T;
+            int iEnd = Math.min(i0 + T, n);
+            for (int jb = ib + 1; jb < tiles; jb++) {
+                load(ib, jb, t);
+                int j0 = jb * T;
+                int jEnd = Math.min(j0 + T, n);
+                for (int i = i0; i < iEnd; i++) {
+                    double acc = 0.0;
+                    for (int j = j0; j < jEnd; j++) {
+                        acc += t[(i - i0) * T + (j - j0)] * x[j];
+                    }
+                    x[i] -= acc;
+                }
+            }
+            load(ib, ib, t);
+            for (int i = iEnd - 1; i >= i0; i--) {
+                double acc = 0.0;
+                for (int j = i + 1; j < iEnd; j++) {
+                    acc += t[(i - i0) * T + (j - i0)] * x[j];
+                }
+                x[i] = (x[i] - acc) / t[(i - i0) * T + (i - i0)];
+            }
+        }
+
+        return x;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+    //vertauscht die Zeilen r1 und r2 innerhalb der Kachelspalte jb
+    private void swapRows(int jb, int r1, int r2) {
+        DoubleBuffer t1 = tile(r1 / tile, jb);
+        DoubleBuffer t2 = tile(r2 / tile, jb);
+        int o1 = (r1 % tile) * tile;
+        int o2 = (r2 % tile) * tile;
+        for (int c = 0; c < tile; c++) {
+            double tmp = t1.get(o1 + c);
+            t1.put(o1 + c, t2.get(o2 + c));
+            t2.put(o2 + c, tmp);
+        }
+    }
+
+    private void load(int bi, int bj, double[] dst) {
+        DoubleBuffer t = tile(bi, bj).duplicate();
+        t.position(0);
+        t.get(dst);
+    }
+
+    private void store(int bi, int bj, double[] src) {
+        DoubleBuffer t = tile(bi, bj).duplicate();
+        t.position(0);
+        t.put(src);
+    }
+
+    //blendet Kachel (bi,bj) beim ersten Zugriff ein
+    private DoubleBuffer tile(int bi, int bj) {
+        int index = bi * tiles + bj;
+        DoubleBuffer t = mapped[index];
+        if (t == null) {
+            long bytes = (long) tile * tile * 8;
+            try {
+                t = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + index * bytes, bytes)
+                        .order(ORDER).asDoubleBuffer();
+            } catch (IOException e) {
+                throw new IllegalStateException("Kachel (" + bi + "," + bj + ") nicht lesbar", e);
+            }
+            mapped[index] = t;
+        }
+        return t;
+    }
+}
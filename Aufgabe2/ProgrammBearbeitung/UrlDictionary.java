@@ -0,0 +1,494 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unveraenderliches, kompaktes Woerterbuch fuer URLs mit Nummern 0 .. n-1
+ * (z.B. die Seitennummern einer LinkMatrix).
+ *
+ * Die URLs werden sortiert und in Bloecken zu BLOCK URLs mit Front-Coding
+ * gespeichert: die erste URL eines Blocks vollstaendig, jede weitere als
+ * Laenge des gemeinsamen Anfangs mit der vorigen und der Rest (UTF-8, Laengen
+ * als varint). Da sortierte URLs meist Host und Pfad mit der vorigen
+ * teilen, bleiben pro URL oft nur 10-20 Bytes. url(id) dekodiert hoechstens
+ * einen Block.
+ *
+ * id(url) sucht ueber eine Hashtabelle mit offener Adressierung (lineares
+ * Sondieren), die zu jedem Platz die Position der URL und die untersten 8 Bit
+ * ihres Hashwerts speichert. Der Platz selbst ergibt sich aus den oberen 32
+ * Bit, das Hashbyte unterscheidet also auch URLs auf benachbarten Plaetzen.
+ * Nur bei gleichem Hashbyte wird die URL dekodiert und verglichen.
+ *
+ * Speicher pro URL: die kodierten Bytes, 4/3 * 5 Bytes fuer die Tabelle und,
+ * falls die Nummern nicht der sortierten Reihenfolge entsprechen, 8 Bytes
+ * fuer die Umnummerierung. Die Bytes liegen in Arrays zu hoechstens 1 GB, so
+ * dass auch mehr als 2 GB URL-Daten moeglich sind.
+ *
+ * LinkMatrix.urls und die Ausgabe des Crawlers bleiben String[]; ein
+ * Woerterbuch entsteht erst mit build bzw. fromLinkMatrix (CompressedGraph
+ * tut das selbst).
+ */
+public class UrlDictionary {
+
+    //URLs pro Block, Groesse der Byte-Arrays, Fuellgrad der Hashtabelle
+    static final int BLOCK = 16;
+    static final int CHUNK_BITS = 30;
+    static final double LOAD_FACTOR = 0.75;
+
+    private static final int MAGIC = 0x55524c32;
+
+    private final int n;
+
+    //kodierte Bloecke, Block b beginnt bei blockOffsets[b] (Array offset >>> CHUNK_BITS)
+    private final byte[][] chunks;
+    private final long[] blockOffsets;
+
+    //idAt[position]: Nummer der URL an der sortierten Position, positionOf[id] umgekehrt; null, wenn gleich
+    private final int[] idAt;
+    private final int[] positionOf;
+
+    //Hashtabelle: Position der URL (-1 = leer) und die untersten 8 Bit ihres Hashwerts
+    private final int[] table;
+    private final byte[] tags;
+
+    private UrlDictionary(int n, byte[][] chunks, long[] blockOffsets, int[] idAt,
+            int[] positionOf, int[] table, byte[] tags) {
+        this.n = n;
+        this.chunks = chunks;
+        this.blockOffsets = blockOffsets;
+        this.idAt = idAt;
+        this.positionOf = positionOf;
+        this.table = table;
+        this.tags = tags;
+    }
+
+    /**
+     * Woerterbuch, in dem urls[i] die Nummer i hat. Die URLs muessen
+     * verschieden und nicht null sein.
+     */
+    public static UrlDictionary build(String[] urls) {
+        int n = urls.length;
+        int[] order = sortedOrder(urls);
+        boolean sorted = true;
+        for (int p = 0; p < n && sorted; p++) {
+            sorted = order[p] == p;
+        }
+        int[] idAt = null;
+        int[] positionOf = null;
+        if (!sorted) {
+            idAt = order;
+            positionOf = new int[n];
+            for (int p = 0; p < n; p++) {
+                positionOf[order[p]] = p;
+            }
+        }
+
+        //Bloecke kodieren
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        long[] blockOffsets = new long[blocks];
+        ChunkWriter out = new ChunkWriter();
+        byte[] previous = new byte[0];
+        Buffer block = new Buffer();
+        for (int b = 0; b < blocks; b++) {
+            block.length = 0;
+            for (int p = b * BLOCK; p < Math.min(n, (b + 1) * BLOCK); p++) {
+                String url = urls[idAt == null ? p : idAt[p]];
+                byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+                if (p > 0 && Arrays.equals(bytes, previous)) {
+                    throw new IllegalArgumentException("URL doppelt: " + url);
+                }
+                int common = 0;
+                if (p % BLOCK != 0) {
+                    int max = Math.min(bytes.length, previous.length);
+                    while (common < max && bytes[common] == previous[common]) {
+                        common++;
+                    }
+                    block.writeVarint(common);
+                }
+                block.writeVarint(bytes.length - common);
+                block.write(bytes, common, bytes.length - common);
+                previous = bytes;
+            }
+            blockOffsets[b] = out.append(block.bytes, block.length);
+        }
+
+        UrlDictionary d = new UrlDictionary(n, out.toArrays(), blockOffsets, idAt, positionOf,
+                new int[capacity(n)], new byte[capacity(n)]);
+        d.buildIndex();
+        return d;
+    }
+
+    /**
+     * Woerterbuch der URLs einer LinkMatrix (Nummer = Seitennummer)
+     */
+    public static UrlDictionary fromLinkMatrix(LinkMatrix lm) {
+        return build(lm.urls);
+    }
+
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Die URL mit der Nummer id
+     */
+    public String url(int id) {
+        Buffer b = new Buffer();
+        decode(positionOf == null ? id : positionOf[id], b);
+        return new String(b.bytes, 0, b.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Die Nummer von url oder -1
+     */
+    public int id(String url) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        long h = hash(bytes);
+        byte tag = (byte) h;
+        Buffer b = null;
+        for (int slot = slot(h, table.length);; slot = slot + 1 == table.length ? 0 : slot + 1) {
+            int position = table[slot];
+            if (position < 0) {
+                return -1;
+            }
+            if (tags[slot] == tag) {
+                if (b == null) {
+                    b = new Buffer();
+                }
+                decode(position, b);
+                if (b.length == bytes.length
+                        && Arrays.equals(b.bytes, 0, b.length, bytes, 0, bytes.length)) {
+                    return idAt == null ? position : idAt[position];
+                }
+            }
+        }
+    }
+
+    /**
+     * Alle URLs, Index = Nummer
+     */
+    public String[] toArray() {
+        String[] urls = new String[n];
+        Buffer b = new Buffer();
+        for (int p = 0; p < n; p++) {
+            decodeNext(p, b);
+            urls[idAt == null ? p : idAt[p]] = new String(b.bytes, 0, b.length,
+                    StandardCharsets.UTF_8);
+        }
+        return urls;
+    }
+
+    /**
+     * Ungefaehrer Speicherbedarf in Bytes
+     */
+    public long byteSize() {
+        long bytes = 8L * blockOffsets.length + 5L * table.length;
+        for (byte[] c : chunks) {
+            bytes += c.length;
+        }
+        if (idAt != null) {
+            bytes += 8L * n;
+        }
+        return bytes;
+    }
+
+    /**
+     * Schreibt das Woerterbuch (mit Hashtabelle) nach filename
+     */
+    public void write(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(chunks.length);
+            for (byte[] c : chunks) {
+                out.writeInt(c.length);
+                out.write(c);
+            }
+            for (long offset : blockOffsets) {
+                out.writeLong(offset);
+            }
+            out.writeBoolean(idAt != null);
+            if (idAt != null) {
+                for (int id : idAt) {
+                    out.writeInt(id);
+                }
+            }
+            out.writeInt(table.length);
+            for (int position : table) {
+                out.writeInt(position);
+            }
+            out.write(tags);
+        }
+    }
+
+    /**
+     * Liest ein mit write geschriebenes Woerterbuch
+     */
+    public static UrlDictionary read(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Keine URL-Datei: " + filename);
+            }
+            int n = in.readInt();
+            byte[][] chunks = new byte[in.readInt()][];
+            for (int c = 0; c < chunks.length; c++) {
+                chunks[c] = new byte[in.readInt()];
+                in.readFully(chunks[c]);
+            }
+            long[] blockOffsets = new long[(n + BLOCK - 1) / BLOCK];
+            for (int b = 0; b < blockOffsets.length; b++) {
+                blockOffsets[b] = in.readLong();
+            }
+            int[] idAt = null;
+            int[] positionOf = null;
+            if (in.readBoolean()) {
+                idAt = new int[n];
+                positionOf = new int[n];
+                for (int p = 0; p < n; p++) {
+                    idAt[p] = in.readInt();
+                    positionOf[idAt[p]] = p;
+                }
+            }
+            int[] table = new int[in.readInt()];
+            for (int s = 0; s < table.length; s++) {
+                table[s] = in.readInt();
+            }
+            byte[] tags = new byte[table.length];
+            in.readFully(tags);
+            return new UrlDictionary(n, chunks, blockOffsets, idAt, positionOf, table, tags);
+        }
+    }
+
+    private void buildIndex() {
+        Arrays.fill(table, -1);
+        Buffer b = new Buffer();
+        for (int p = 0; p < n; p++) {
+            decodeNext(p, b);
+            long h = hash(b.bytes, b.length);
+            int slot = slot(h, table.length);
+            while (table[slot] >= 0) {
+                slot = slot + 1 == table.length ? 0 : slot + 1;
+            }
+            table[slot] = p;
+            tags[slot] = (byte) h;
+        }
+    }
+
+    //URL an der sortierten Position position nach b
+    private void decode(int position, Buffer b) {
+        int block = position / BLOCK;
+        long offset = blockOffsets[block];
+        b.chunk = (int) (offset >>> CHUNK_BITS);
+        byte[] data = chunks[b.chunk];
+        int pos = (int) (offset & ((1L << CHUNK_BITS) - 1));
+        b.length = 0;
+        for (int p = block * BLOCK; p <= position; p++) {
+            pos = readEntry(data, pos, p % BLOCK != 0, b);
+        }
+        b.position = position;
+        b.entryEnd = pos;
+    }
+
+    //wie decode, setzt aber auf der zuletzt in b dekodierten URL auf, wenn das die vorige ist
+    private void decodeNext(int position, Buffer b) {
+        if (position % BLOCK != 0 && b.position == position - 1) {
+            b.entryEnd = readEntry(chunks[b.chunk], b.entryEnd, true, b);
+            b.position = position;
+        } else {
+            decode(position, b);
+        }
+    }
+
+    //liest den Eintrag bei pos (mit gemeinsamem Anfang, falls front) in b, liefert sein Ende
+    private static int readEntry(byte[] data, int pos, boolean front, Buffer b) {
+        int common = 0;
+        if (front) {
+            for (int shift = 0;; shift += 7) {
+                byte x = data[pos++];
+                common |= (x & 0x7f) << shift;
+                if (x >= 0) {
+                    break;
+                }
+            }
+        }
+        int suffix = 0;
+        for (int shift = 0;; shift += 7) {
+            byte x = data[pos++];
+            suffix |= (x & 0x7f) << shift;
+            if (x >= 0) {
+                break;
+            }
+        }
+        b.length = common;
+        b.write(data, pos, suffix);
+        return pos + suffix;
+    }
+
+    private static int capacity(int n) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(2, (long) Math.ceil(n / LOAD_FACTOR)));
+    }
+
+    //Platz in [0, capacity) aus den oberen 32 Bit von h (ohne Division)
+    private static int slot(long h, int capacity) {
+        return (int) (((h >>> 32) * capacity) >>> 32);
+    }
+
+    static long hash(byte[] bytes) {
+        return hash(bytes, bytes.length);
+    }
+
+    //FNV-1a, danach durchmischt, damit auch die oberen Bits gleichmaessig sind
+    static long hash(byte[] bytes, int length) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Die Nummern 0 .. urls.length-1, aufsteigend nach urls (String.compareTo)
+     * sortiert. Ist urls schon sortiert, wird nur einmal verglichen. Wirft eine
+     * IllegalArgumentException, wenn eine URL null ist.
+     */
+    static int[] sortedOrder(String[] urls) {
+        int n = urls.length;
+        int[] order = new int[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            if (urls[i] == null) {
+                throw new IllegalArgumentException("URL " + i + " ist null");
+            }
+            order[i] = i;
+            sorted &= i == 0 || urls[i - 1].compareTo(urls[i]) <= 0;
+        }
+        if (!sorted) {
+            sort(order, urls, 0, n - 1);
+        }
+        return order;
+    }
+
+    //sortiert order[lo .. hi] nach urls (Quicksort mit Median aus drei, kurze Stuecke per Einfuegen)
+    private static void sort(int[] order, String[] urls, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            if (urls[order[mid]].compareTo(urls[order[lo]]) < 0) {
+                swap(order, lo, mid);
+            }
+            if (urls[order[hi]].compareTo(urls[order[lo]]) < 0) {
+                swap(order, lo, hi);
+            }
+            if (urls[order[hi]].compareTo(urls[order[mid]]) < 0) {
+                swap(order, mid, hi);
+            }
+            swap(order, mid, hi);
+            String pivot = urls[order[hi]];
+            int store = lo;
+            for (int i = lo; i < hi; i++) {
+                if (urls[order[i]].compareTo(pivot) < 0) {
+                    swap(order, i, store++);
+                }
+            }
+            swap(order, store, hi);
+
+            //kleinere Seite rekursiv, groessere in der Schleife
+            if (store - lo < hi - store) {
+                sort(order, urls, lo, store - 1);
+                lo = store + 1;
+            } else {
+                sort(order, urls, store + 1, hi);
+                hi = store - 1;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int v = order[i];
+            int j = i - 1;
+            while (j >= lo && urls[v].compareTo(urls[order[j]]) < 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = v;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+    //wachsender Byte-Puffer fuer eine URL bzw. einen Block
+    private static class Buffer {
+
+        byte[] bytes = new byte[256];
+        int length = 0;
+
+        //zuletzt dekodierte Position, Ende ihres Eintrags und ihr Array (fuer decodeNext)
+        int position = -1;
+        int entryEnd = -1;
+        int chunk = 0;
+
+        void write(byte[] src, int from, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + count));
+            }
+            System.arraycopy(src, from, bytes, length, count);
+            length += count;
+        }
+
+        void writeVarint(int x) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            while ((x & ~0x7f) != 0) {
+                bytes[length++] = (byte) ((x & 0x7f) | 0x80);
+                x >>>= 7;
+            }
+            bytes[length++] = (byte) x;
+        }
+    }
+
+    //haengt Bloecke an, ein Block liegt immer ganz in einem Array
+    private static class ChunkWriter {
+
+        private final List<byte[]> full = new ArrayList<byte[]>();
+        private byte[] current = new byte[1 << 16];
+        private int length = 0;
+
+        long append(byte[] block, int count) {
+            int max = 1 << CHUNK_BITS;
+            if ((long) length + count > max) {
+                full.add(Arrays.copyOf(current, length));
+                current = new byte[Math.max(1 << 16, count)];
+                length = 0;
+            }
+            if (length + count > current.length) {
+                current = Arrays.copyOf(current,
+                        (int) Math.min(max, Math.max(2L * current.length, (long) length + count)));
+            }
+            System.arraycopy(block, 0, current, length, count);
+            long offset = ((long) full.size() << CHUNK_BITS) | length;
+            length += count;
+            return offset;
+        }
+
+        byte[][] toArrays() {
+            full.add(Arrays.copyOf(current, length));
+            return full.toArray(new byte[0][]);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * GaussKernels mit der Vector API. SPECIES_PREFERRED ist die breiteste vom
+ * Prozessor unterstuetzte Vektorlaenge (z.B. 4 doubles mit AVX2, 8 mit
+ * AVX-512), die Auswahl geschieht also erst zur Laufzeit. Die Reste am Ende
+ * einer Zeile werden skalar berechnet.
+ */
+public class VectorKernels implements GaussKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void subtractScaled(double[] y, double[] x, double factor, int from, int to) {
+        int j = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; j < upper; j += SPECIES.length()) {
+            DoubleVector yv = DoubleVector.fromArray(SPECIES, y, j);
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, j);
+            yv.sub(xv.mul(factor)).intoArray(y, j);
+        }
+        for (; j < to; j++) {
+            y[j] = y[j] - (factor * x[j]);
+        }
+    }
+
+    @Override
+    public double dot(double[] x, double[] y, int from, int to) {
+        int j = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        for (; j < upper; j += SPECIES.length()) {
+            DoubleVector xv = DoubleVector.fromArray(SPECIES, x, j);
+            DoubleVector yv = DoubleVector.fromArray(SPECIES, y, j);
+            acc = xv.fma(yv, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < to; j++) {
+            sum += x[j] * y[j];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " x double)";
+    }
+}